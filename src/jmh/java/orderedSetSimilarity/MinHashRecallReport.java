@@ -0,0 +1,113 @@
+package orderedSetSimilarity;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * print the recall and speed of {@link MinHashIndex} against brute force top-K search for a grid of band and row
+ * settings, so a setting can be picked for a corpus.
+ * The synthetic corpus is made of clusters: every list is a perturbed copy of a cluster seed with a few elements
+ * moved, dropped or replaced, which gives every query a handful of genuinely similar lists.
+ * Usage: MinHashRecallReport [corpusSize] [queries] [k]
+ * Run with: mvn -Pjmh test-compile exec:exec -Djmh.main=orderedSetSimilarity.MinHashRecallReport -Djmh.args="100000 200 10"
+ */
+public class MinHashRecallReport {
+
+    private static final int[][] SETTINGS = {{8, 2}, {16, 2}, {16, 3}, {32, 3}, {20, 4}, {32, 4}, {50, 4}, {25, 5}};
+
+    public static void main(String[] args) {
+        int corpusSize = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int queryCount = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int k = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        Random random = new Random(1);
+        List<int[]> corpus = clusteredCorpus(random, corpusSize);
+        List<int[]> queries = new ArrayList<>(queryCount);
+        for (int i = 0; i < queryCount; i++) {
+            queries.add(perturb(random, corpus.get(random.nextInt(corpus.size()))));
+        }
+
+        // exact results and timing of the brute force search
+        List<List<Match>> exact = new ArrayList<>(queryCount);
+        long start = System.nanoTime();
+        for (int[] query : queries) {
+            List<Match> matches = new ArrayList<>(SimilaritySearch.topK(query, corpus, k));
+            matches.removeIf(match -> match.score() <= 0.0);
+            exact.add(matches);
+        }
+        double bruteForceMillis = (System.nanoTime() - start) / 1e6 / queryCount;
+
+        System.out.printf("corpus=%d queries=%d k=%d brute force=%.3f ms/query%n", corpusSize, queryCount, k, bruteForceMillis);
+        System.out.printf("%6s %5s %9s %12s %10s %9s %9s%n", "bands", "rows", "recall@k", "candidates", "ms/query", "speedup", "build s");
+        for (int[] setting : SETTINGS) {
+            long buildStart = System.nanoTime();
+            MinHashIndex index = MinHashIndex.build(corpus, setting[0], setting[1]);
+            double buildSeconds = (System.nanoTime() - buildStart) / 1e9;
+
+            long candidates = 0;
+            int found = 0;
+            int expected = 0;
+            start = System.nanoTime();
+            for (int i = 0; i < queryCount; i++) {
+                List<Match> approximate = index.topK(queries.get(i), k);
+                Set<Integer> ids = new HashSet<>();
+                approximate.forEach(match -> ids.add(match.index()));
+                for (Match match : exact.get(i)) {
+                    if (ids.contains(match.index())) {
+                        found++;
+                    }
+                }
+                expected += exact.get(i).size();
+            }
+            double millis = (System.nanoTime() - start) / 1e6 / queryCount;
+            for (int[] query : queries) {
+                candidates += index.candidates(query).length;
+            }
+
+            System.out.printf("%6d %5d %9.4f %12.1f %10.3f %8.1fx %9.2f%n", setting[0], setting[1],
+                    expected == 0 ? 1.0 : (double) found / expected, (double) candidates / queryCount, millis,
+                    bruteForceMillis / millis, buildSeconds);
+        }
+    }
+
+    private static List<int[]> clusteredCorpus(Random random, int size) {
+        List<int[]> seeds = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, size / 20); i++) {
+            seeds.add(random.ints(10 + random.nextInt(40), 0, 1000000).distinct().toArray());
+        }
+        List<int[]> corpus = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            corpus.add(perturb(random, seeds.get(random.nextInt(seeds.size()))));
+        }
+        return corpus;
+    }
+
+    private static int[] perturb(Random random, int[] list) {
+        int[] copy = list.clone();
+        int edits = 1 + random.nextInt(Math.max(1, copy.length / 4));
+        for (int edit = 0; edit < edits && copy.length > 1; edit++) {
+            int i = random.nextInt(copy.length);
+            int j = random.nextInt(copy.length);
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    // move
+                    int element = copy[i];
+                    copy[i] = copy[j];
+                    copy[j] = element;
+                }
+                case 1 -> {
+                    // drop
+                    int[] shorter = new int[copy.length - 1];
+                    System.arraycopy(copy, 0, shorter, 0, i);
+                    System.arraycopy(copy, i + 1, shorter, i, copy.length - i - 1);
+                    copy = shorter;
+                }
+                default -> copy[i] = 1000000 + random.nextInt(1000000);
+            }
+        }
+        return copy;
+    }
+}
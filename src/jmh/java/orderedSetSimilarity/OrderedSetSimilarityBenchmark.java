@@ -0,0 +1,155 @@
+package orderedSetSimilarity;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * throughput of the four metrics through both the List<Integer> and the int[] entry points.
+ * Every invocation compares the next of a fixed set of pre-generated pairs, so list generation and boxing are not
+ * measured and the JIT cannot specialise on a single pair. Run with -prof gc to see the allocation rate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderedSetSimilarityBenchmark {
+
+    private static final int PAIRS = 1024;
+
+    @Param({"10", "100", "1000"})
+    public int listLength;
+
+    // the fraction of the elements of list1 that are also in list2
+    @Param({"0.1", "0.5", "0.9"})
+    public double overlap;
+
+    @Param({"2000", "1000000"})
+    public int idRange;
+
+    private int[][] arrays1;
+    private int[][] arrays2;
+    private List<List<Integer>> lists1;
+    private List<List<Integer>> lists2;
+    private SortedSetList[] sorted1;
+    private SortedSetList[] sorted2;
+    private PreparedList[] prepared1;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        if (idRange < 2 * listLength) {
+            throw new IllegalArgumentException("idRange must be at least twice listLength");
+        }
+        Random random = new Random(42);
+        arrays1 = new int[PAIRS][];
+        arrays2 = new int[PAIRS][];
+        lists1 = new ArrayList<>(PAIRS);
+        lists2 = new ArrayList<>(PAIRS);
+        sorted1 = new SortedSetList[PAIRS];
+        sorted2 = new SortedSetList[PAIRS];
+        prepared1 = new PreparedList[PAIRS];
+        for (int pair = 0; pair < PAIRS; pair++) {
+            int[] list1 = random.ints(0, idRange).distinct().limit(listLength).toArray();
+            Set<Integer> used = new HashSet<>();
+            Arrays.stream(list1).forEach(used::add);
+
+            // keep a share of list1 and fill up with elements list1 does not contain, in a different order
+            List<Integer> list2 = new ArrayList<>(listLength);
+            int common = (int) Math.round(overlap * listLength);
+            for (int i = 0; i < common; i++) {
+                list2.add(list1[i]);
+            }
+            while (list2.size() < listLength) {
+                int element = random.nextInt(idRange);
+                if (used.add(element)) {
+                    list2.add(element);
+                }
+            }
+            Collections.shuffle(list2, random);
+
+            arrays1[pair] = list1;
+            arrays2[pair] = list2.stream().mapToInt(i -> i).toArray();
+            lists1.add(Arrays.stream(list1).boxed().toList());
+            lists2.add(List.copyOf(list2));
+            sorted1[pair] = new SortedSetList(arrays1[pair]);
+            sorted2[pair] = new SortedSetList(arrays2[pair]);
+            prepared1[pair] = new PreparedList(arrays1[pair]);
+        }
+    }
+
+    private int nextPair() {
+        next = (next + 1) & (PAIRS - 1);
+        return next;
+    }
+
+    @Benchmark
+    public double orderedSetSimilarityArray() {
+        int pair = nextPair();
+        return OrderedSetSimilarity.orderedSetSimilarity(arrays1[pair], arrays2[pair]);
+    }
+
+    @Benchmark
+    public double orderedSetSimilarityList() {
+        int pair = nextPair();
+        return OrderedSetSimilarity.orderedSetSimilarity(lists1.get(pair), lists2.get(pair));
+    }
+
+    @Benchmark
+    public double orderedSetSimilarityPrepared() {
+        int pair = nextPair();
+        return prepared1[pair].orderedSetSimilarity(arrays2[pair]);
+    }
+
+    @Benchmark
+    public double orderedSetSimilaritySorted() {
+        int pair = nextPair();
+        return sorted1[pair].orderedSetSimilarity(sorted2[pair]);
+    }
+
+    // builds both sorted forms on every call, the price of the sorted path for lists compared only once
+    @Benchmark
+    public double sortedConstructionAndCompare() {
+        int pair = nextPair();
+        return new SortedSetList(arrays1[pair]).orderedSetSimilarity(new SortedSetList(arrays2[pair]));
+    }
+
+    @Benchmark
+    public double jaccardSimilarityArray() {
+        int pair = nextPair();
+        return OrderedSetSimilarity.jaccardSimilarity(arrays1[pair], arrays2[pair]);
+    }
+
+    @Benchmark
+    public double jaccardSimilarityList() {
+        int pair = nextPair();
+        return OrderedSetSimilarity.jaccardSimilarity(lists1.get(pair), lists2.get(pair));
+    }
+
+    @Benchmark
+    public double kendallSimilarityArray() {
+        int pair = nextPair();
+        return OrderedSetSimilarity.kendallSimilarity(arrays1[pair], arrays2[pair]);
+    }
+
+    @Benchmark
+    public double kendallSimilarityList() {
+        int pair = nextPair();
+        return OrderedSetSimilarity.kendallSimilarity(lists1.get(pair), lists2.get(pair));
+    }
+
+    @Benchmark
+    public double displacementSimilarityArray() {
+        int pair = nextPair();
+        return OrderedSetSimilarity.displacementSimilarity(arrays1[pair], arrays2[pair]);
+    }
+
+    @Benchmark
+    public double displacementSimilarityList() {
+        int pair = nextPair();
+        return OrderedSetSimilarity.displacementSimilarity(lists1.get(pair), lists2.get(pair));
+    }
+}
@@ -0,0 +1,114 @@
+package orderedSetSimilarity;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * load test of {@link SimilarityServer}: concurrent clients send /similarity requests whose queries come from a small
+ * hot set, so requests share queries the way recommendation traffic does, and the latency percentiles, the throughput
+ * and the average batch size are printed.
+ * The server runs in this JVM unless a port is given.
+ * Usage: SimilarityServerLoadHarness [requests] [clients] [hotQueries] [listLength] [port]
+ * Run with: mvn -Pjmh test-compile exec:exec -Djmh.main=orderedSetSimilarity.SimilarityServerLoadHarness -Djmh.args="100000 64"
+ */
+public class SimilarityServerLoadHarness {
+
+    public static void main(String[] args) throws Exception {
+        // this JVM only runs the harness, so it can opt into TCP_NODELAY for the in-process server
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        int requestCount = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int hotQueries = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        int listLength = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+
+        SimilarityServer server = args.length > 4 ? null : SimilarityServer.start(0);
+        int port = server == null ? Integer.parseInt(args[4]) : server.port();
+        try {
+            Random random = new Random(1);
+            List<String> queries = new ArrayList<>(hotQueries);
+            for (int i = 0; i < hotQueries; i++) {
+                queries.add(ListFormat.format(random.ints(listLength, 0, 10 * listLength).toArray()));
+            }
+            List<String> candidates = new ArrayList<>(1024);
+            for (int i = 0; i < 1024; i++) {
+                candidates.add(ListFormat.format(random.ints(listLength, 0, 10 * listLength).toArray()));
+            }
+
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            URI uri = URI.create("http://localhost:" + port + "/similarity");
+            // warm up the server and the client
+            run(client, uri, queries, candidates, Math.min(requestCount, 10000), clients);
+
+            long start = System.nanoTime();
+            long[] latencies = run(client, uri, queries, candidates, requestCount, clients);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            Arrays.sort(latencies);
+            System.out.printf("requests=%d clients=%d hotQueries=%d listLength=%d%n", requestCount, clients, hotQueries, listLength);
+            System.out.printf("throughput=%.0f req/s p50=%.3f ms p90=%.3f ms p99=%.3f ms max=%.3f ms%n",
+                    requestCount / seconds, percentile(latencies, 0.5), percentile(latencies, 0.9),
+                    percentile(latencies, 0.99), latencies[latencies.length - 1] / 1e6);
+            if (server != null) {
+                System.out.printf("average batch size=%.2f%n", (double) server.batchedRequests() / Math.max(1, server.batches()));
+            }
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    /**
+     * @return the latency of every request in nanoseconds
+     */
+    private static long[] run(HttpClient client, URI uri, List<String> queries, List<String> candidates, int requestCount, int clients) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>(clients);
+            for (int c = 0; c < clients; c++) {
+                int share = requestCount / clients + (c < requestCount % clients ? 1 : 0);
+                long seed = c;
+                futures.add(executor.submit(() -> {
+                    Random random = new Random(seed);
+                    long[] latencies = new long[share];
+                    for (int i = 0; i < share; i++) {
+                        String body = queries.get(random.nextInt(queries.size())) + "\n" + candidates.get(random.nextInt(candidates.size())) + "\n";
+                        HttpRequest request = HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.ofString(body)).build();
+                        long start = System.nanoTime();
+                        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                        latencies[i] = System.nanoTime() - start;
+                        if (response.statusCode() != 200) {
+                            throw new IOException("status " + response.statusCode() + ": " + response.body());
+                        }
+                    }
+                    return latencies;
+                }));
+            }
+            long[] latencies = new long[requestCount];
+            int next = 0;
+            for (Future<long[]> future : futures) {
+                long[] clientLatencies = future.get();
+                System.arraycopy(clientLatencies, 0, latencies, next, clientLatencies.length);
+                next += clientLatencies.length;
+            }
+            return latencies;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
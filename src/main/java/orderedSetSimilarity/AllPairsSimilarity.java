@@ -0,0 +1,120 @@
+package orderedSetSimilarity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * compute the orderedSetSimilarity of every pair of lists without holding the N x N matrix in memory.
+ * Only the upper triangle (row < column) is computed; the similarity is symmetric for lists without repeated elements.
+ * The triangle is cut into square tiles. The lists of a tile row are prepared once and shared by all tiles of that row,
+ * and inside a tile every column list is indexed once and scored against all rows while its index is still in cache.
+ * Tiles run on a ForkJoinPool and each finished tile is handed to the sink, which must be thread safe.
+ */
+public class AllPairsSimilarity {
+
+    public static final int DEFAULT_TILE_SIZE = 256;
+
+    public static void compute(List<int[]> lists, Consumer<SimilarityTile> sink) {
+        compute(lists, DEFAULT_TILE_SIZE, ForkJoinPool.commonPool(), sink);
+    }
+
+    /**
+     * @param lists the lists to compare, must not change during the computation
+     * @param tileSize the number of rows and columns of a tile
+     * @param pool the pool the tiles are scheduled on
+     * @param sink receives every tile of the upper triangle exactly once, from any thread of the pool
+     */
+    public static void compute(List<int[]> lists, int tileSize, ForkJoinPool pool, Consumer<SimilarityTile> sink) {
+        if (tileSize < 1) {
+            throw new IllegalArgumentException("tileSize must be positive: " + tileSize);
+        }
+        int tileRows = (lists.size() + tileSize - 1) / tileSize;
+        pool.invoke(new TileRows(lists, tileSize, sink, 0, tileRows));
+    }
+
+    /**
+     * splits the tile rows in halves until a single tile row is left.
+     */
+    @SuppressWarnings("serial") // never serialized, only run by a ForkJoinPool
+    private static final class TileRows extends RecursiveAction {
+        private final List<int[]> lists;
+        private final int tileSize;
+        private final Consumer<SimilarityTile> sink;
+        private final int from;
+        private final int to;
+
+        TileRows(List<int[]> lists, int tileSize, Consumer<SimilarityTile> sink, int from, int to) {
+            this.lists = lists;
+            this.tileSize = tileSize;
+            this.sink = sink;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new TileRows(lists, tileSize, sink, from, middle), new TileRows(lists, tileSize, sink, middle, to));
+                return;
+            }
+            if (to == from) {
+                return;
+            }
+
+            int rowStart = from * tileSize;
+            int rowEnd = Math.min(rowStart + tileSize, lists.size());
+            PreparedList[] rows = new PreparedList[rowEnd - rowStart];
+            for (int row = rowStart; row < rowEnd; row++) {
+                rows[row - rowStart] = new PreparedList(lists.get(row));
+            }
+
+            // the diagonal tile and every tile to the right of it
+            List<Tile> tiles = new ArrayList<>();
+            for (int columnStart = rowStart; columnStart < lists.size(); columnStart += tileSize) {
+                tiles.add(new Tile(lists, sink, rows, rowStart, columnStart, Math.min(columnStart + tileSize, lists.size())));
+            }
+            invokeAll(tiles);
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class Tile extends RecursiveAction {
+        private final List<int[]> lists;
+        private final Consumer<SimilarityTile> sink;
+        private final PreparedList[] rows;
+        private final int rowStart;
+        private final int columnStart;
+        private final int columnEnd;
+
+        Tile(List<int[]> lists, Consumer<SimilarityTile> sink, PreparedList[] rows, int rowStart, int columnStart, int columnEnd) {
+            this.lists = lists;
+            this.sink = sink;
+            this.rows = rows;
+            this.rowStart = rowStart;
+            this.columnStart = columnStart;
+            this.columnEnd = columnEnd;
+        }
+
+        @Override
+        protected void compute() {
+            SimilarityWorkspace workspace = SimilarityWorkspace.local();
+            int width = columnEnd - columnStart;
+            double[] scores = new double[rows.length * width];
+            Arrays.fill(scores, Double.NaN);
+            for (int column = columnStart; column < columnEnd; column++) {
+                int[] list = lists.get(column);
+                IntIntMap indexMap = PreparedList.index(list, workspace);
+                for (int row = rowStart; row < Math.min(rowStart + rows.length, column); row++) {
+                    scores[(row - rowStart) * width + column - columnStart] = rows[row - rowStart].orderedSetSimilarity(list.length, indexMap);
+                }
+            }
+            workspace.trim();
+            sink.accept(new SimilarityTile(rowStart, rowStart + rows.length, columnStart, columnEnd, scores));
+        }
+    }
+}
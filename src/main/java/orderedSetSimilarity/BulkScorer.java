@@ -0,0 +1,372 @@
+package orderedSetSimilarity;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * streaming pipeline that scores a large stream of (query, candidate) pairs with a fixed amount of memory.
+ * A reader thread parses the input into batches of pairs, worker threads score the batches through the int[] entry
+ * points with a workspace each, and the calling thread writes the scores. The stages are connected by bounded queues
+ * and at most 4 batches per worker are in flight at any time, so a slow writer holds back the reader instead of
+ * filling the heap.
+ * <p>
+ * Input formats:
+ * <ul>
+ *     <li>TEXT: one pair per line, the query and the candidate separated by a tab, the elements of each separated by
+ *     spaces or commas. Empty lines are skipped.</li>
+ *     <li>BINARY: a sequence of pairs, each an int query length, the query elements, an int candidate length and the
+ *     candidate elements, all little endian like {@link CorpusFile}. Lists longer than the maximum list length are
+ *     rejected before anything is allocated for them.</li>
+ * </ul>
+ * The output has one line per pair: the score in input order, or when unordered the index of the pair in the input, a
+ * tab and the score, in whatever order the batches finish.
+ */
+public final class BulkScorer {
+
+    public static final int DEFAULT_BATCH_SIZE = 1024;
+    // the longest list accepted from binary input, so a corrupt length cannot allocate gigabytes
+    public static final int DEFAULT_MAX_LIST_LENGTH = 1 << 20;
+
+    // batches in flight per worker
+    private static final int BATCHES_PER_WORKER = 4;
+
+    public enum Format {
+        TEXT,
+        BINARY
+    }
+
+    /**
+     * a similarity metric with the signature of the workspace entry points of {@link OrderedSetSimilarity}, for
+     * example OrderedSetSimilarity::kendallSimilarity.
+     */
+    @FunctionalInterface
+    public interface PairScorer {
+        double score(int[] query, int[] candidate, SimilarityWorkspace workspace);
+    }
+
+    private final PairScorer scorer;
+    private final int threads;
+    private final int batchSize;
+    private final boolean ordered;
+    private final int maxListLength;
+
+    /**
+     * an ordered orderedSetSimilarity scorer.
+     * @param threads the number of scoring threads
+     */
+    public BulkScorer(int threads) {
+        this(OrderedSetSimilarity::orderedSetSimilarity, threads, DEFAULT_BATCH_SIZE, true);
+    }
+
+    /**
+     * @param scorer the metric, must be thread safe apart from the workspace
+     * @param threads the number of scoring threads
+     * @param batchSize the number of pairs handed to a worker at once
+     * @param ordered whether scores are written in input order
+     */
+    public BulkScorer(PairScorer scorer, int threads, int batchSize, boolean ordered) {
+        this(scorer, threads, batchSize, ordered, DEFAULT_MAX_LIST_LENGTH);
+    }
+
+    /**
+     * @param scorer the metric, must be thread safe apart from the workspace
+     * @param threads the number of scoring threads
+     * @param batchSize the number of pairs handed to a worker at once
+     * @param ordered whether scores are written in input order
+     * @param maxListLength the longest list the binary reader accepts
+     */
+    public BulkScorer(PairScorer scorer, int threads, int batchSize, boolean ordered, int maxListLength) {
+        if (threads < 1 || batchSize < 1 || maxListLength < 0) {
+            throw new IllegalArgumentException("threads and batchSize must be positive and maxListLength not negative: "
+                    + threads + ", " + batchSize + ", " + maxListLength);
+        }
+        this.scorer = scorer;
+        this.threads = threads;
+        this.batchSize = batchSize;
+        this.ordered = ordered;
+        this.maxListLength = maxListLength;
+    }
+
+    /**
+     * score every pair of the input and write the scores to the output. Neither stream is closed.
+     * @param in
+     * @param format
+     * @param out
+     * @return the number of pairs scored
+     * @throws IOException if the input is malformed or a stream fails
+     */
+    public long score(InputStream in, Format format, OutputStream out) throws IOException {
+        PairReader reader = format == Format.TEXT ? new TextPairReader(in) : new BinaryPairReader(in, maxListLength);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+
+        int inFlight = threads * BATCHES_PER_WORKER;
+        Semaphore permits = new Semaphore(inFlight);
+        // room for every batch in flight plus an end marker per worker, so a put never blocks on a full queue
+        BlockingQueue<Batch> input = new ArrayBlockingQueue<>(inFlight + threads);
+        BlockingQueue<Batch> output = new ArrayBlockingQueue<>(inFlight + threads);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1, runnable -> {
+            Thread thread = new Thread(runnable, "bulk-scorer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            executor.execute(() -> readBatches(reader, permits, input, failure));
+            for (int worker = 0; worker < threads; worker++) {
+                executor.execute(() -> scoreBatches(input, output, failure));
+            }
+
+            long pairs = 0;
+            int sequence = 0;
+            Map<Integer, Batch> pending = new HashMap<>();
+            for (int ended = 0; ended < threads; ) {
+                Batch batch = output.poll(100, TimeUnit.MILLISECONDS);
+                rethrow(failure.get());
+                if (batch == null) {
+                    continue;
+                }
+                if (batch == Batch.END) {
+                    ended++;
+                    continue;
+                }
+                if (!ordered) {
+                    pairs += write(batch, writer);
+                    permits.release();
+                    continue;
+                }
+                // hold batches that finished early until their predecessors are written
+                pending.put(batch.sequence, batch);
+                for (Batch next = pending.remove(sequence); next != null; next = pending.remove(sequence)) {
+                    pairs += write(next, writer);
+                    permits.release();
+                    sequence++;
+                }
+            }
+            rethrow(failure.get());
+            writer.flush();
+            return pairs;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while scoring");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void readBatches(PairReader reader, Semaphore permits, BlockingQueue<Batch> input, AtomicReference<Throwable> failure) {
+        try {
+            long index = 0;
+            for (int sequence = 0; ; sequence++) {
+                permits.acquire();
+                Batch batch = new Batch(sequence, index, batchSize);
+                batch.count = reader.read(batch.queries, batch.candidates);
+                if (batch.count == 0) {
+                    break;
+                }
+                index += batch.count;
+                input.put(batch);
+                if (batch.count < batchSize) {
+                    break;
+                }
+            }
+        } catch (Throwable t) {
+            failure.compareAndSet(null, t);
+        } finally {
+            for (int worker = 0; worker < threads; worker++) {
+                input.offer(Batch.END);
+            }
+        }
+    }
+
+    private void scoreBatches(BlockingQueue<Batch> input, BlockingQueue<Batch> output, AtomicReference<Throwable> failure) {
+        SimilarityWorkspace workspace = new SimilarityWorkspace();
+        try {
+            for (Batch batch = input.take(); batch != Batch.END; batch = input.take()) {
+                for (int i = 0; i < batch.count; i++) {
+                    batch.scores[i] = scorer.score(batch.queries[i], batch.candidates[i], workspace);
+                }
+                output.put(batch);
+            }
+        } catch (Throwable t) {
+            failure.compareAndSet(null, t);
+        } finally {
+            output.offer(Batch.END);
+        }
+    }
+
+    private int write(Batch batch, Writer writer) throws IOException {
+        for (int i = 0; i < batch.count; i++) {
+            if (!ordered) {
+                writer.write(Long.toString(batch.firstIndex + i));
+                writer.write('\t');
+            }
+            writer.write(Double.toString(batch.scores[i]));
+            writer.write('\n');
+        }
+        return batch.count;
+    }
+
+    private static void rethrow(Throwable failure) throws IOException {
+        if (failure instanceof IOException e) {
+            throw e;
+        } else if (failure instanceof RuntimeException e) {
+            throw e;
+        } else if (failure instanceof Error e) {
+            throw e;
+        } else if (failure != null) {
+            throw new IOException(failure);
+        }
+    }
+
+    /**
+     * write a pair in the BINARY format.
+     * @param out
+     * @param query
+     * @param candidate
+     * @throws IOException
+     */
+    public static void writeBinary(DataOutput out, int[] query, int[] candidate) throws IOException {
+        out.writeInt(Integer.reverseBytes(query.length));
+        for (int element : query) {
+            out.writeInt(Integer.reverseBytes(element));
+        }
+        out.writeInt(Integer.reverseBytes(candidate.length));
+        for (int element : candidate) {
+            out.writeInt(Integer.reverseBytes(element));
+        }
+    }
+
+    private static final class Batch {
+        static final Batch END = new Batch(-1, -1, 0);
+
+        final int sequence;
+        final long firstIndex;
+        final int[][] queries;
+        final int[][] candidates;
+        final double[] scores;
+        int count;
+
+        Batch(int sequence, long firstIndex, int size) {
+            this.sequence = sequence;
+            this.firstIndex = firstIndex;
+            this.queries = new int[size][];
+            this.candidates = new int[size][];
+            this.scores = new double[size];
+        }
+    }
+
+    private interface PairReader {
+        /**
+         * fill the arrays with the next pairs.
+         * @return the number of pairs read, less than the array length only at the end of the input
+         */
+        int read(int[][] queries, int[][] candidates) throws IOException;
+    }
+
+    private static final class TextPairReader implements PairReader {
+        private final BufferedReader reader;
+        private long lineNumber;
+
+        TextPairReader(InputStream in) {
+            this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+        }
+
+        @Override
+        public int read(int[][] queries, int[][] candidates) throws IOException {
+            int count = 0;
+            while (count < queries.length) {
+                String line = reader.readLine();
+                if (line == null) {
+                    break;
+                }
+                lineNumber++;
+                if (line.isEmpty()) {
+                    continue;
+                }
+                int tab = line.indexOf('\t');
+                if (tab < 0) {
+                    throw new IOException("line " + lineNumber + ": expected a query and a candidate separated by a tab");
+                }
+                try {
+                    queries[count] = ListFormat.parse(line, 0, tab, false);
+                    candidates[count] = ListFormat.parse(line, tab + 1, line.length(), false);
+                } catch (NumberFormatException e) {
+                    throw new IOException("line " + lineNumber + ": not a list of ints: " + e.getMessage());
+                }
+                count++;
+            }
+            return count;
+        }
+    }
+
+    private static final class BinaryPairReader implements PairReader {
+        private final DataInputStream in;
+        private final int maxListLength;
+
+        BinaryPairReader(InputStream in, int maxListLength) {
+            this.in = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+            this.maxListLength = maxListLength;
+        }
+
+        @Override
+        public int read(int[][] queries, int[][] candidates) throws IOException {
+            int count = 0;
+            try {
+                while (count < queries.length) {
+                    int b0 = in.read();
+                    if (b0 < 0) {
+                        break;
+                    }
+                    int b1 = in.read();
+                    int b2 = in.read();
+                    int b3 = in.read();
+                    if ((b1 | b2 | b3) < 0) {
+                        throw new EOFException();
+                    }
+                    queries[count] = readList(b0 | b1 << 8 | b2 << 16 | b3 << 24);
+                    candidates[count] = readList(Integer.reverseBytes(in.readInt()));
+                    count++;
+                }
+            } catch (EOFException e) {
+                throw new IOException("truncated pair at the end of the input", e);
+            }
+            return count;
+        }
+
+        private int[] readList(int length) throws IOException {
+            if (length < 0) {
+                throw new IOException("negative list length: " + length);
+            }
+            if (length > maxListLength) {
+                throw new IOException("list length " + length + " exceeds the maximum of " + maxListLength);
+            }
+            int[] list = new int[length];
+            for (int i = 0; i < length; i++) {
+                list[i] = Integer.reverseBytes(in.readInt());
+            }
+            return list;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package orderedSetSimilarity;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * command line front end of {@link BulkScorer}. Scores the pairs of the input file and prints the throughput to
+ * standard error.
+ * Usage:
+ * <pre>
+ * BulkScoringCli [--input file] [--output file] [--format text|binary] [--threads n] [--batch n] [--unordered]
+ *                [--metric ordered|jaccard|kendall|displacement] [--max-list-length n]
+ * BulkScoringCli --generate pairs file [listLength]
+ * </pre>
+ * Input and output default to standard in and out, threads to the number of processors. --generate writes a synthetic
+ * binary input file for measuring throughput.
+ */
+public class BulkScoringCli {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--generate")) {
+            generate(Long.parseLong(args[1]), Path.of(args[2]), args.length > 3 ? Integer.parseInt(args[3]) : 100);
+            return;
+        }
+
+        Path input = null;
+        Path output = null;
+        BulkScorer.Format format = BulkScorer.Format.TEXT;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int batchSize = BulkScorer.DEFAULT_BATCH_SIZE;
+        boolean ordered = true;
+        int maxListLength = BulkScorer.DEFAULT_MAX_LIST_LENGTH;
+        BulkScorer.PairScorer scorer = OrderedSetSimilarity::orderedSetSimilarity;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--input" -> input = Path.of(args[++i]);
+                case "--output" -> output = Path.of(args[++i]);
+                case "--format" -> format = BulkScorer.Format.valueOf(args[++i].toUpperCase());
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--batch" -> batchSize = Integer.parseInt(args[++i]);
+                case "--unordered" -> ordered = false;
+                case "--max-list-length" -> maxListLength = Integer.parseInt(args[++i]);
+                case "--metric" -> scorer = switch (args[++i]) {
+                    case "ordered" -> OrderedSetSimilarity::orderedSetSimilarity;
+                    case "jaccard" -> OrderedSetSimilarity::jaccardSimilarity;
+                    case "kendall" -> OrderedSetSimilarity::kendallSimilarity;
+                    case "displacement" -> OrderedSetSimilarity::displacementSimilarity;
+                    default -> throw new IllegalArgumentException("unknown metric: " + args[i]);
+                };
+                default -> throw new IllegalArgumentException("unknown option: " + args[i]);
+            }
+        }
+
+        BulkScorer bulkScorer = new BulkScorer(scorer, threads, batchSize, ordered, maxListLength);
+        try (InputStream in = input == null ? System.in : Files.newInputStream(input);
+             OutputStream out = output == null ? System.out : Files.newOutputStream(output)) {
+            long start = System.nanoTime();
+            long pairs = bulkScorer.score(in, format, out);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.err.printf("pairs=%d threads=%d seconds=%.2f pairs/s=%.0f%n", pairs, threads, seconds, pairs / seconds);
+        }
+    }
+
+    /**
+     * write pairs of random lists that share about half of their elements, in the binary format.
+     */
+    private static void generate(long pairs, Path file, int listLength) throws IOException {
+        Random random = new Random(1);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            for (long pair = 0; pair < pairs; pair++) {
+                int[] query = random.ints(listLength, 0, 4 * listLength).toArray();
+                int[] candidate = random.ints(listLength, 0, 4 * listLength).toArray();
+                BulkScorer.writeBinary(out, query, candidate);
+            }
+        }
+    }
+}
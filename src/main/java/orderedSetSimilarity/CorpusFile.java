@@ -0,0 +1,129 @@
+package orderedSetSimilarity;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * binary file format of a {@link PackedCorpus} that is loaded by memory mapping instead of parsing, so opening a corpus
+ * takes constant time and every JVM on a host that maps the same file shares its pages in the page cache.
+ * All values are little endian:
+ * <pre>
+ * header          32 bytes: int magic "OSSC", int version, int reserved, int list count, long element count, long reserved
+ * offsets         (list count + 1) ints, list i is elements[offsets[i]] .. elements[offsets[i + 1] - 1]
+ * elements        element count ints
+ * distinct counts list count ints
+ * </pre>
+ * Every section is mapped on its own, so a section is limited to 2 GB, which is 2^29 elements. The reserved int after the
+ * version used to flag the distinct counts, which are always present; it is written as 0 and ignored.
+ */
+public class CorpusFile {
+
+    static final int MAGIC = 0x4353534F;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+
+    private static final int CHUNK_INTS = 1 << 16;
+
+    /**
+     * write the corpus to the file, replacing it if it exists.
+     * @param corpus
+     * @param file
+     * @throws IOException
+     */
+    public static void write(PackedCorpus corpus, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putInt(0)
+                    .putInt(corpus.size())
+                    .putLong(corpus.elementCount())
+                    .putLong(0L)
+                    .flip();
+            writeFully(channel, header);
+
+            ByteBuffer chunk = ByteBuffer.allocate(CHUNK_INTS * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            write(channel, corpus.offsets(), corpus.size() + 1, chunk);
+            write(channel, corpus.elements(), corpus.elementCount(), chunk);
+            write(channel, corpus.distinctCounts(), corpus.size(), chunk);
+        }
+    }
+
+    /**
+     * memory map a corpus file. The corpus reads the file directly, nothing is copied onto the heap. Only the offsets
+     * are read up front, to check that they slice the elements.
+     * @param file
+     * @return
+     * @throws IOException if the file is not a corpus file, is truncated or its offsets are corrupt
+     */
+    public static PackedCorpus map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(HEADER_BYTES, channel.size()))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (header.limit() < HEADER_BYTES || header.getInt(0) != MAGIC) {
+                throw new IOException("not a corpus file: " + file);
+            }
+            if (header.getInt(4) != VERSION) {
+                throw new IOException("unsupported corpus file version " + header.getInt(4) + ": " + file);
+            }
+            int listCount = header.getInt(12);
+            long elementCount = header.getLong(16);
+
+            long offsetsStart = HEADER_BYTES;
+            long elementsStart = offsetsStart + (listCount + 1L) * Integer.BYTES;
+            long distinctStart = elementsStart + elementCount * Integer.BYTES;
+            long end = distinctStart + (long) listCount * Integer.BYTES;
+            if (listCount < 0 || elementCount < 0 || channel.size() < end) {
+                throw new IOException("truncated corpus file: " + file);
+            }
+
+            IntBuffer offsets = map(channel, offsetsStart, listCount + 1L);
+            checkOffsets(offsets, elementCount, file);
+            IntBuffer elements = map(channel, elementsStart, elementCount);
+            return new PackedCorpus(elements, offsets, map(channel, distinctStart, listCount));
+        }
+    }
+
+    private static void checkOffsets(IntBuffer offsets, long elementCount, Path file) throws IOException {
+        if (offsets.get(0) != 0 || offsets.get(offsets.limit() - 1) != elementCount) {
+            throw new IOException("corpus file offsets do not span the " + elementCount + " elements: " + file);
+        }
+        for (int list = 0; list + 1 < offsets.limit(); list++) {
+            if (offsets.get(list + 1) < offsets.get(list)) {
+                throw new IOException("corpus file offsets decrease at list " + list + ": " + file);
+            }
+        }
+    }
+
+    private static IntBuffer map(FileChannel channel, long start, long ints) throws IOException {
+        if (ints * Integer.BYTES > Integer.MAX_VALUE) {
+            throw new IOException("corpus file section larger than 2 GB");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, ints * Integer.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .asIntBuffer();
+    }
+
+    private static void write(FileChannel channel, IntBuffer values, int count, ByteBuffer chunk) throws IOException {
+        for (int start = 0; start < count; start += CHUNK_INTS) {
+            int end = Math.min(start + CHUNK_INTS, count);
+            chunk.clear();
+            for (int i = start; i < end; i++) {
+                chunk.putInt(values.get(i));
+            }
+            chunk.flip();
+            writeFully(channel, chunk);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
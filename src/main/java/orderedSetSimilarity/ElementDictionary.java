@@ -0,0 +1,125 @@
+package orderedSetSimilarity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * concurrent interning dictionary that assigns dense int ids 0, 1, 2, ... to element keys such as String or Long SKUs.
+ * Lists are encoded once at ingest into {@link EncodedList}s, and every later comparison runs on the dense ids in a
+ * direct-address workspace, without hashing the original keys again.
+ * A dictionary is thread safe; ids are never reassigned.
+ * @param <K> the element key type, which must implement equals and hashCode
+ */
+public final class ElementDictionary<K> {
+
+    public static final int DEFAULT_MAX_DENSE_IDS = 1 << 22;
+
+    private final ConcurrentHashMap<K, Integer> ids = new ConcurrentHashMap<>();
+    private final int maxDenseIds;
+    // reverse mapping, keys[id] is published before size is raised past id
+    private volatile Object[] keys = new Object[64];
+    private volatile int size;
+
+    public ElementDictionary() {
+        this(DEFAULT_MAX_DENSE_IDS);
+    }
+
+    /**
+     * @param maxDenseIds the largest id universe of the direct-address workspaces, which take 16 bytes per id per
+     *                    thread; ids beyond it are hashed
+     */
+    public ElementDictionary(int maxDenseIds) {
+        this.maxDenseIds = Math.min(maxDenseIds, IntIntMap.MAX_UNIVERSE);
+    }
+
+    /**
+     * @param key
+     * @return the id of the key, assigning the next free id if the key is new
+     */
+    public int encode(K key) {
+        Integer id = ids.get(key);
+        if (id != null) {
+            return id;
+        }
+        return ids.computeIfAbsent(key, this::assign);
+    }
+
+    public EncodedList encode(List<K> list) {
+        int[] encoded = new int[list.size()];
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = encode(list.get(i));
+        }
+        return new EncodedList(this, encoded);
+    }
+
+    /**
+     * @param key
+     * @return the id of the key, or -1 if it has never been encoded
+     */
+    public int lookup(K key) {
+        Integer id = ids.get(key);
+        return id == null ? -1 : id;
+    }
+
+    @SuppressWarnings("unchecked")
+    public K decode(int id) {
+        if (id < 0 || id >= size) {
+            throw new IllegalArgumentException("unknown id: " + id);
+        }
+        return (K) keys[id];
+    }
+
+    public List<K> decode(EncodedList list) {
+        checkOwner(list);
+        List<K> decoded = new ArrayList<>(list.size());
+        for (int id : list.ids()) {
+            decoded.add(decode(id));
+        }
+        return decoded;
+    }
+
+    /**
+     * @return the number of distinct keys encoded so far
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return a new workspace whose direct-address tables cover the ids assigned so far, for callers that keep one
+     * per thread and pass it to the EncodedList methods
+     */
+    public SimilarityWorkspace workspace() {
+        return new SimilarityWorkspace(16, idUniverse());
+    }
+
+    /**
+     * @return the thread-local dense-id workspace, large enough for the ids assigned so far
+     */
+    SimilarityWorkspace localWorkspace() {
+        return SimilarityWorkspace.localDense(idUniverse());
+    }
+
+    private int idUniverse() {
+        return Math.max(Math.min(size, maxDenseIds), 1024);
+    }
+
+    void checkOwner(EncodedList list) {
+        if (list.dictionary() != this) {
+            throw new IllegalArgumentException("the list was encoded with another dictionary");
+        }
+    }
+
+    // called by computeIfAbsent at most once per key, synchronized so ids are handed out in order
+    private synchronized Integer assign(K key) {
+        int id = size;
+        if (id == keys.length) {
+            keys = Arrays.copyOf(keys, keys.length * 2);
+        }
+        keys[id] = key;
+        size = id + 1;
+        return id;
+    }
+}
@@ -0,0 +1,98 @@
+package orderedSetSimilarity;
+
+/**
+ * a list whose elements have been replaced by their dense ids in an {@link ElementDictionary}.
+ * Comparisons run on the ids in a dense-id workspace: the calling thread's own, or one from
+ * {@link ElementDictionary#workspace()} passed in. Two encoded lists can only be compared if they were encoded with the
+ * same dictionary.
+ */
+public final class EncodedList {
+
+    private final ElementDictionary<?> dictionary;
+    private final int[] ids;
+
+    EncodedList(ElementDictionary<?> dictionary, int[] ids) {
+        this.dictionary = dictionary;
+        this.ids = ids;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * @return the encoded ids, which must not be modified
+     */
+    public int[] ids() {
+        return ids;
+    }
+
+    public ElementDictionary<?> dictionary() {
+        return dictionary;
+    }
+
+    public double orderedSetSimilarity(EncodedList other) {
+        dictionary.checkOwner(other);
+        SimilarityWorkspace workspace = dictionary.localWorkspace();
+        double similarity = OrderedSetSimilarity.orderedSetSimilarity(ids, other.ids, workspace);
+        workspace.trim();
+        return similarity;
+    }
+
+    public double orderedSetSimilarity(EncodedList other, SimilarityWorkspace workspace) {
+        dictionary.checkOwner(other);
+        return OrderedSetSimilarity.orderedSetSimilarity(ids, other.ids, workspace);
+    }
+
+    public double jaccardSimilarity(EncodedList other) {
+        dictionary.checkOwner(other);
+        SimilarityWorkspace workspace = dictionary.localWorkspace();
+        double similarity = OrderedSetSimilarity.jaccardSimilarity(ids, other.ids, workspace);
+        workspace.trim();
+        return similarity;
+    }
+
+    public double jaccardSimilarity(EncodedList other, SimilarityWorkspace workspace) {
+        dictionary.checkOwner(other);
+        return OrderedSetSimilarity.jaccardSimilarity(ids, other.ids, workspace);
+    }
+
+    public double kendallSimilarity(EncodedList other) {
+        dictionary.checkOwner(other);
+        SimilarityWorkspace workspace = dictionary.localWorkspace();
+        double similarity = OrderedSetSimilarity.kendallSimilarity(ids, other.ids, workspace);
+        workspace.trim();
+        return similarity;
+    }
+
+    public double kendallSimilarity(EncodedList other, SimilarityWorkspace workspace) {
+        dictionary.checkOwner(other);
+        return OrderedSetSimilarity.kendallSimilarity(ids, other.ids, workspace);
+    }
+
+    public double displacementSimilarity(EncodedList other) {
+        dictionary.checkOwner(other);
+        SimilarityWorkspace workspace = dictionary.localWorkspace();
+        double similarity = OrderedSetSimilarity.displacementSimilarity(ids, other.ids, workspace);
+        workspace.trim();
+        return similarity;
+    }
+
+    public double displacementSimilarity(EncodedList other, SimilarityWorkspace workspace) {
+        dictionary.checkOwner(other);
+        return OrderedSetSimilarity.displacementSimilarity(ids, other.ids, workspace);
+    }
+
+    public SimilarityReport similarityReport(EncodedList other) {
+        dictionary.checkOwner(other);
+        SimilarityWorkspace workspace = dictionary.localWorkspace();
+        SimilarityReport report = OrderedSetSimilarity.similarityReport(ids, other.ids, workspace);
+        workspace.trim();
+        return report;
+    }
+
+    public SimilarityReport similarityReport(EncodedList other, SimilarityWorkspace workspace) {
+        dictionary.checkOwner(other);
+        return OrderedSetSimilarity.similarityReport(ids, other.ids, workspace);
+    }
+}
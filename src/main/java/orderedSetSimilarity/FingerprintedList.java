@@ -0,0 +1,53 @@
+package orderedSetSimilarity;
+
+import java.util.List;
+
+/**
+ * a list together with a 64-bit fingerprint of its content, computed once, which {@link ScoreCache} uses as the key of
+ * the list. The fingerprint depends on the order of the elements, so a permutation of a list has another fingerprint.
+ * The list must not be modified after it has been fingerprinted.
+ */
+public final class FingerprintedList {
+
+    private final int[] elements;
+    private final long fingerprint;
+
+    public FingerprintedList(int[] list) {
+        this.elements = list;
+        this.fingerprint = fingerprint(list);
+    }
+
+    public FingerprintedList(List<Integer> list) {
+        this(OrderedSetSimilarity.toArray(list));
+    }
+
+    public int[] elements() {
+        return elements;
+    }
+
+    public long fingerprint() {
+        return fingerprint;
+    }
+
+    public int size() {
+        return elements.length;
+    }
+
+    /**
+     * @return a hash of the elements in order, every element is mixed into the running hash so neither order nor
+     * length collide systematically
+     */
+    static long fingerprint(int[] list) {
+        long hash = 0x9E3779B97F4A7C15L;
+        for (int element : list) {
+            hash = mix(hash ^ (element & 0xFFFFFFFFL));
+        }
+        return mix(hash ^ list.length);
+    }
+
+    static long mix(long hash) {
+        hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+        hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+}
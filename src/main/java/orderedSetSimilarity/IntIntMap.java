@@ -0,0 +1,193 @@
+package orderedSetSimilarity;
+
+import java.util.Arrays;
+
+/**
+ * open-addressing map from int keys to int values used by the primitive similarity engine.
+ * Slots are tagged with a generation stamp, so clearing the map between comparisons is O(1) and never touches the tables.
+ * Clearing keeps the tables, so a map that is reused for lists of similar size stops allocating after warm-up; only
+ * trim(maxCapacity) shrinks a hashed table that has outgrown maxCapacity back to the minimum.
+ * A map created for a key universe [0, universe) stores those keys in a direct-address table instead, where a lookup
+ * is a single array load; keys outside the universe fall back to the hashed table.
+ */
+final class IntIntMap {
+
+    private static final int MIN_CAPACITY = 16;
+    static final int MAX_UNIVERSE = 1 << 29;
+
+    private int[] keys;
+    private int[] values;
+    private int[] stamps;
+    private int mask;
+    private int stamp = 1;
+    private int hashedSize;
+
+    private final int universe;
+    // stamp and value of key k at dense[2 * k] and dense[2 * k + 1], interleaved so a lookup touches one cache line
+    private final int[] dense;
+    private int denseSize;
+
+    IntIntMap() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    IntIntMap(int expectedSize) {
+        this(expectedSize, 0);
+    }
+
+    /**
+     * @param expectedSize
+     * @param universe keys in [0, universe) are stored in a direct-address table of 8 * universe bytes
+     */
+    IntIntMap(int expectedSize, int universe) {
+        if (universe < 0 || universe > MAX_UNIVERSE) {
+            throw new IllegalArgumentException("universe must be in [0, 2^29]: " + universe);
+        }
+        this.universe = universe;
+        this.dense = new int[2 * universe];
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * remove all entries and make sure that at least expectedSize keys fit without resizing.
+     * @param expectedSize
+     */
+    void clear(int expectedSize) {
+        hashedSize = 0;
+        denseSize = 0;
+        if (++stamp == 0) {
+            // the stamp wrapped around, so old slots could look occupied again
+            Arrays.fill(stamps, 0);
+            for (int i = 0; i < dense.length; i += 2) {
+                dense[i] = 0;
+            }
+            stamp = 1;
+        }
+        int capacity = capacityFor(expectedSize);
+        if (capacity > keys.length) {
+            allocate(capacity);
+        }
+    }
+
+    /**
+     * associate key with value, replacing any previous value.
+     * @param key
+     * @param value
+     */
+    void put(int key, int value) {
+        if (Integer.compareUnsigned(key, universe) < 0) {
+            if (dense[2 * key] != stamp) {
+                dense[2 * key] = stamp;
+                denseSize++;
+            }
+            dense[2 * key + 1] = value;
+            return;
+        }
+        int slot = mix(key) & mask;
+        while (stamps[slot] == stamp) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        stamps[slot] = stamp;
+        keys[slot] = key;
+        values[slot] = value;
+        if (++hashedSize > (mask + 1) >> 1) {
+            rehash();
+        }
+    }
+
+    /**
+     * @param key
+     * @param missingValue
+     * @return the value associated with key, or missingValue if there is none
+     */
+    int get(int key, int missingValue) {
+        if (Integer.compareUnsigned(key, universe) < 0) {
+            return dense[2 * key] == stamp ? dense[2 * key + 1] : missingValue;
+        }
+        int slot = mix(key) & mask;
+        while (stamps[slot] == stamp) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return missingValue;
+    }
+
+    boolean containsKey(int key) {
+        if (Integer.compareUnsigned(key, universe) < 0) {
+            return dense[2 * key] == stamp;
+        }
+        int slot = mix(key) & mask;
+        while (stamps[slot] == stamp) {
+            if (keys[slot] == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    int size() {
+        return hashedSize + denseSize;
+    }
+
+    /**
+     * @return the number of slots of the hashed table
+     */
+    int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * if the hashed table has more than maxCapacity slots, replace it with a minimal one. The entries are removed.
+     * @param maxCapacity
+     */
+    void trim(int maxCapacity) {
+        if (keys.length > maxCapacity) {
+            allocate(MIN_CAPACITY);
+            clear(0);
+        }
+    }
+
+    private void rehash() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        int[] oldStamps = stamps;
+        allocate(oldKeys.length << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldStamps[i] == stamp) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    /**
+     * replace the hashed table with an empty one, the stamp is kept so the direct-address table stays valid.
+     */
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        stamps = new int[capacity];
+        mask = capacity - 1;
+        hashedSize = 0;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        // keep the load factor at or below 0.5 so probe sequences stay short
+        long required = Math.max(MIN_CAPACITY, 2L * expectedSize);
+        if (required > 1 << 30) {
+            throw new IllegalArgumentException("too many elements: " + expectedSize);
+        }
+        return Integer.highestOneBit((int) required - 1) << 1;
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,166 @@
+package orderedSetSimilarity;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * in-memory inverted index from each element to the ids of the corpus lists that contain it.
+ * orderedSetSimilarity is 0.0 whenever two lists have no common element, so a query only needs to be scored against the
+ * lists found in the posting lists of its own elements. The only exception is the empty query, which is similar to
+ * the empty lists of the corpus.
+ * The index is immutable once built and can be shared between threads.
+ */
+public final class InvertedIndex {
+
+    private final List<int[]> corpus;
+    // element -> slot of its posting list
+    private final IntIntMap slots;
+    // the posting list of slot s is postings[offsets[s]] .. postings[offsets[s + 1] - 1], in increasing list id order
+    private final int[] offsets;
+    private final int[] postings;
+    private final int[] emptyLists;
+
+    private InvertedIndex(List<int[]> corpus, IntIntMap slots, int[] offsets, int[] postings, int[] emptyLists) {
+        this.corpus = corpus;
+        this.slots = slots;
+        this.offsets = offsets;
+        this.postings = postings;
+        this.emptyLists = emptyLists;
+    }
+
+    /**
+     * index every list of the corpus. The corpus is not copied, so it must not change while the index is in use.
+     * @param corpus
+     * @return
+     */
+    public static InvertedIndex build(List<int[]> corpus) {
+        IntIntMap distinct = new IntIntMap();
+        IntIntMap slots = new IntIntMap();
+        int[] counts = new int[16];
+        int emptyCount = 0;
+
+        // first pass: count the lists each element occurs in
+        for (int[] list : corpus) {
+            if (list.length == 0) {
+                emptyCount++;
+            }
+            OrderedSetSimilarity.index(distinct, list);
+            for (int i = 0; i < list.length; i++) {
+                if (distinct.get(list[i], -1) != i) {
+                    // count an element once, at its last index
+                    continue;
+                }
+                int slot = slots.get(list[i], -1);
+                if (slot < 0) {
+                    slot = slots.size();
+                    slots.put(list[i], slot);
+                    if (slot == counts.length) {
+                        counts = Arrays.copyOf(counts, counts.length * 2);
+                    }
+                }
+                counts[slot]++;
+            }
+        }
+
+        int[] offsets = new int[slots.size() + 1];
+        for (int slot = 0; slot < slots.size(); slot++) {
+            offsets[slot + 1] = offsets[slot] + counts[slot];
+        }
+
+        // second pass: fill the posting lists, reusing counts as the fill position of every slot
+        int[] postings = new int[offsets[slots.size()]];
+        int[] emptyLists = new int[emptyCount];
+        System.arraycopy(offsets, 0, counts, 0, slots.size());
+        emptyCount = 0;
+        for (int id = 0; id < corpus.size(); id++) {
+            int[] list = corpus.get(id);
+            if (list.length == 0) {
+                emptyLists[emptyCount++] = id;
+            }
+            OrderedSetSimilarity.index(distinct, list);
+            for (int i = 0; i < list.length; i++) {
+                if (distinct.get(list[i], -1) == i) {
+                    postings[counts[slots.get(list[i], -1)]++] = id;
+                }
+            }
+        }
+
+        return new InvertedIndex(corpus, slots, offsets, postings, emptyLists);
+    }
+
+    /**
+     * @param query
+     * @return the ids, in increasing order, of the corpus lists that can have a non-zero similarity to the query
+     */
+    public int[] candidates(int[] query) {
+        SimilarityWorkspace workspace = SimilarityWorkspace.local();
+        int[] ids = candidates(query, workspace);
+        workspace.trim();
+        return ids;
+    }
+
+    public int[] candidates(int[] query, SimilarityWorkspace workspace) {
+        int count = collectCandidates(query, workspace);
+        return Arrays.copyOf(workspace.scratch(count), count);
+    }
+
+    /**
+     * find the k corpus lists with the highest orderedSetSimilarity to the query, only scoring the candidates.
+     * Lists that share no element with the query have a similarity of 0.0, only positive scores are returned.
+     * @param query
+     * @param k
+     * @return the matches with a positive similarity, best first, ties broken by the lower id
+     */
+    public List<Match> topK(int[] query, int k) {
+        SimilarityWorkspace workspace = SimilarityWorkspace.local();
+        List<Match> matches = topK(new PreparedList(query), k, workspace);
+        workspace.trim();
+        return matches;
+    }
+
+    public List<Match> topK(PreparedList query, int k, SimilarityWorkspace workspace) {
+        return SimilaritySearch.topK(query, corpus, candidates(query.elements(), workspace), k, workspace);
+    }
+
+    /**
+     * @return the number of lists in the corpus
+     */
+    public int size() {
+        return corpus.size();
+    }
+
+    /**
+     * gather the sorted, distinct candidate ids into the start of the workspace scratch array.
+     * @return the number of candidates
+     */
+    private int collectCandidates(int[] query, SimilarityWorkspace workspace) {
+        if (query.length == 0) {
+            int[] scratch = workspace.scratch(emptyLists.length);
+            System.arraycopy(emptyLists, 0, scratch, 0, emptyLists.length);
+            return emptyLists.length;
+        }
+
+        IntIntMap distinct = OrderedSetSimilarity.index(workspace.indexMap1, query);
+        int total = 0;
+        for (int i = 0; i < query.length; i++) {
+            int slot = slots.get(query[i], -1);
+            if (slot >= 0 && distinct.get(query[i], -1) == i) {
+                total += offsets[slot + 1] - offsets[slot];
+            }
+        }
+
+        int[] scratch = workspace.scratch(total);
+        int count = 0;
+        for (int i = 0; i < query.length; i++) {
+            int slot = slots.get(query[i], -1);
+            if (slot >= 0 && distinct.get(query[i], -1) == i) {
+                int length = offsets[slot + 1] - offsets[slot];
+                System.arraycopy(postings, offsets[slot], scratch, count, length);
+                count += length;
+            }
+        }
+
+        // a list sharing several elements with the query is in several posting lists
+        return SimilaritySearch.sortedUnique(scratch, count);
+    }
+}
@@ -0,0 +1,56 @@
+package orderedSetSimilarity;
+
+import java.util.Arrays;
+
+/**
+ * the plain text form of a list shared by the server and the bulk scorer: the elements as decimal ints separated by
+ * spaces, tabs or commas. An empty string is an empty list.
+ */
+final class ListFormat {
+
+    private ListFormat() {
+    }
+
+    static int[] parse(CharSequence text) {
+        return parse(text, 0, text.length(), true);
+    }
+
+    /**
+     * @param text
+     * @param start the first character of the list
+     * @param end the end of the list, exclusive
+     * @param tabIsSeparator whether a tab separates elements; pass false when a tab ends the list
+     * @return the elements
+     * @throws NumberFormatException if an element is not an int
+     */
+    static int[] parse(CharSequence text, int start, int end, boolean tabIsSeparator) {
+        int[] list = new int[8];
+        int size = 0;
+        int elementStart = -1;
+        for (int i = start; i <= end; i++) {
+            char c = i == end ? ' ' : text.charAt(i);
+            boolean separator = c == ' ' || c == ',' || (c == '\t' && tabIsSeparator);
+            if (!separator && elementStart < 0) {
+                elementStart = i;
+            } else if (separator && elementStart >= 0) {
+                if (size == list.length) {
+                    list = Arrays.copyOf(list, size * 2);
+                }
+                list[size++] = Integer.parseInt(text, elementStart, i, 10);
+                elementStart = -1;
+            }
+        }
+        return Arrays.copyOf(list, size);
+    }
+
+    static String format(int[] list) {
+        StringBuilder text = new StringBuilder(list.length * 4);
+        for (int i = 0; i < list.length; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(list[i]);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,9 @@
+package orderedSetSimilarity;
+
+/**
+ * a corpus list found by a similarity search.
+ * @param index the position of the list in the corpus
+ * @param score the similarity between the query and the list
+ */
+public record Match(int index, double score) {
+}
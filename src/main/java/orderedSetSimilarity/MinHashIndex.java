@@ -0,0 +1,208 @@
+package orderedSetSimilarity;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * approximate nearest neighbour index: MinHash signatures of the distinct elements of each list, split into bands that
+ * are hashed into LSH buckets. A query is only scored against the lists that share at least one bucket with it, and
+ * those candidates are re-ranked with the exact orderedSetSimilarity.
+ * Two lists with Jaccard similarity s share a bucket with probability 1 - (1 - s^rows)^bands, so more bands raise
+ * recall and more rows per band cut the number of candidates. MinHashRecallReport in src/jmh/java measures the trade-off.
+ * The index is immutable once built and can be shared between threads.
+ */
+public final class MinHashIndex {
+
+    private final List<int[]> corpus;
+    private final int bands;
+    private final int rows;
+    private final long[] seeds;
+    // per band, (bucket hash << 32 | list id) sorted, so the lists of one bucket are a contiguous range
+    private final long[][] buckets;
+    private final int[] emptyLists;
+
+    private MinHashIndex(List<int[]> corpus, int bands, int rows, long[] seeds, long[][] buckets, int[] emptyLists) {
+        this.corpus = corpus;
+        this.bands = bands;
+        this.rows = rows;
+        this.seeds = seeds;
+        this.buckets = buckets;
+        this.emptyLists = emptyLists;
+    }
+
+    /**
+     * index every list of the corpus. The corpus is not copied, so it must not change while the index is in use.
+     * @param corpus
+     * @param bands the number of LSH bands, more bands find more of the similar lists
+     * @param rows the number of MinHash values per band, more rows make a bucket more selective
+     * @param seed the seed of the hash functions
+     * @return
+     */
+    public static MinHashIndex build(List<int[]> corpus, int bands, int rows, long seed) {
+        if (bands < 1 || rows < 1) {
+            throw new IllegalArgumentException("bands and rows must be positive: " + bands + ", " + rows);
+        }
+        long[] seeds = new SplittableRandom(seed).longs(bands * rows).toArray();
+
+        int emptyCount = 0;
+        for (int[] list : corpus) {
+            if (list.length == 0) {
+                emptyCount++;
+            }
+        }
+        int[] emptyLists = new int[emptyCount];
+        long[][] buckets = new long[bands][corpus.size() - emptyCount];
+
+        int[] signature = new int[bands * rows];
+        int indexed = 0;
+        emptyCount = 0;
+        for (int id = 0; id < corpus.size(); id++) {
+            int[] list = corpus.get(id);
+            if (list.length == 0) {
+                // an empty list has no MinHash, it is only similar to the empty query
+                emptyLists[emptyCount++] = id;
+                continue;
+            }
+            signature(list, seeds, signature);
+            for (int band = 0; band < bands; band++) {
+                buckets[band][indexed] = (long) bucket(signature, band, rows) << 32 | id;
+            }
+            indexed++;
+        }
+        for (long[] band : buckets) {
+            Arrays.sort(band);
+        }
+
+        return new MinHashIndex(corpus, bands, rows, seeds, buckets, emptyLists);
+    }
+
+    public static MinHashIndex build(List<int[]> corpus, int bands, int rows) {
+        return build(corpus, bands, rows, 0x5DEECE66DL);
+    }
+
+    /**
+     * @param query
+     * @return the ids, in increasing order, of the corpus lists that share an LSH bucket with the query
+     */
+    public int[] candidates(int[] query) {
+        SimilarityWorkspace workspace = SimilarityWorkspace.local();
+        int[] ids = candidates(query, workspace);
+        workspace.trim();
+        return ids;
+    }
+
+    public int[] candidates(int[] query, SimilarityWorkspace workspace) {
+        int count = collectCandidates(query, workspace);
+        return Arrays.copyOf(workspace.scratch(count), count);
+    }
+
+    /**
+     * find approximately the k corpus lists with the highest orderedSetSimilarity to the query.
+     * Every returned score is exact, but a similar list that shares no bucket with the query is missed.
+     * @param query
+     * @param k
+     * @return the candidates with a positive similarity, best first, ties broken by the lower id
+     */
+    public List<Match> topK(int[] query, int k) {
+        SimilarityWorkspace workspace = SimilarityWorkspace.local();
+        List<Match> matches = topK(new PreparedList(query), k, workspace);
+        workspace.trim();
+        return matches;
+    }
+
+    public List<Match> topK(PreparedList query, int k, SimilarityWorkspace workspace) {
+        return SimilaritySearch.topK(query, corpus, candidates(query.elements(), workspace), k, workspace);
+    }
+
+    public int bands() {
+        return bands;
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    /**
+     * gather the sorted, distinct candidate ids into the start of the workspace scratch array.
+     * @return the number of candidates
+     */
+    private int collectCandidates(int[] query, SimilarityWorkspace workspace) {
+        if (query.length == 0) {
+            int[] scratch = workspace.scratch(emptyLists.length);
+            System.arraycopy(emptyLists, 0, scratch, 0, emptyLists.length);
+            return emptyLists.length;
+        }
+
+        int[] signature = new int[bands * rows];
+        signature(query, seeds, signature);
+        int[] starts = new int[bands];
+        int[] ends = new int[bands];
+        int total = 0;
+        for (int band = 0; band < bands; band++) {
+            long bucket = (long) bucket(signature, band, rows) << 32;
+            starts[band] = lowerBound(buckets[band], bucket);
+            // no list id is 0xFFFFFFFF, so this is the end of the bucket
+            ends[band] = lowerBound(buckets[band], bucket | 0xFFFFFFFFL);
+            total += ends[band] - starts[band];
+        }
+
+        int[] scratch = workspace.scratch(total);
+        int count = 0;
+        for (int band = 0; band < bands; band++) {
+            for (int i = starts[band]; i < ends[band]; i++) {
+                scratch[count++] = (int) buckets[band][i];
+            }
+        }
+
+        // a list sharing several buckets with the query is found once per bucket
+        return SimilaritySearch.sortedUnique(scratch, count);
+    }
+
+    /**
+     * compute the MinHash of the elements of list under every seeded hash function.
+     */
+    private static void signature(int[] list, long[] seeds, int[] signature) {
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (int element : list) {
+            for (int i = 0; i < seeds.length; i++) {
+                int hash = (int) (mix(element ^ seeds[i]) >>> 32);
+                if (hash < signature[i]) {
+                    signature[i] = hash;
+                }
+            }
+        }
+    }
+
+    private static int bucket(int[] signature, int band, int rows) {
+        long hash = band;
+        for (int row = band * rows; row < (band + 1) * rows; row++) {
+            hash = hash * 0x9E3779B97F4A7C15L + signature[row];
+        }
+        return (int) (mix(hash) >>> 32);
+    }
+
+    /**
+     * @return the first index of keys holding a value of at least key
+     */
+    private static int lowerBound(long[] keys, long key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // the 64 bit finalizer of MurmurHash3
+    private static long mix(long hash) {
+        hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+        hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+}
@@ -5,17 +5,229 @@ import java.util.*;
 public class OrderedSetSimilarity {
 
     public static double orderedSetSimilarity(List<Integer> list1, List<Integer> list2) {
-        return orderedSetSimilarity(list1.stream().mapToInt(i -> i).toArray(), list2.stream().mapToInt(i -> i).toArray());
+        return orderedSetSimilarity(toArray(list1), toArray(list2));
     }
 
     /**
      * compute the similarity between 2 lists more efficiently by combining Jaccard and Displacement similarity.
+     * Uses a workspace owned by the calling thread, so repeated calls do not allocate.
      * @param list1
      * @param list2
      * @return
      */
     public static double orderedSetSimilarity(int[] list1, int[] list2) {
-        if (list1.length == 0 && list2.length == 0) {
+        SimilarityWorkspace workspace = SimilarityWorkspace.local();
+        double similarity = orderedSetSimilarity(list1, list2, workspace);
+        workspace.trim();
+        return similarity;
+    }
+
+    /**
+     * compute the similarity between 2 lists more efficiently by combining Jaccard and Displacement similarity.
+     * All intermediate state lives in the given workspace, so a loop that reuses it allocates nothing per call.
+     * @param list1
+     * @param list2
+     * @param workspace scratch space, must not be shared between threads
+     * @return
+     */
+    public static double orderedSetSimilarity(int[] list1, int[] list2, SimilarityWorkspace workspace) {
+        long start = SimilarityMetrics.start();
+        double similarity = orderedSetSimilarity(list1, index(workspace.indexMap1, list1), list2.length, index(workspace.indexMap2, list2));
+        SimilarityMetrics.stop(SimilarityMetrics.Metric.ORDERED_SET_SIMILARITY, start, list1, list2.length, workspace);
+        return similarity;
+    }
+
+    /**
+     * calculate the Jaccard similarity between 2 lists. This compares intersection size to union size.
+     * It can only penalize omissions, not disorder.
+     * @param list1
+     * @param list2
+     * @return
+     */
+    public static double jaccardSimilarity(List<Integer> list1, List<Integer> list2) {
+        return jaccardSimilarity(toArray(list1), toArray(list2));
+    }
+
+    public static double jaccardSimilarity(int[] list1, int[] list2) {
+        SimilarityWorkspace workspace = SimilarityWorkspace.local();
+        double similarity = jaccardSimilarity(list1, list2, workspace);
+        workspace.trim();
+        return similarity;
+    }
+
+    public static double jaccardSimilarity(int[] list1, int[] list2, SimilarityWorkspace workspace) {
+        long start = SimilarityMetrics.start();
+        double similarity = jaccardSimilarity(list1, index(workspace.indexMap1, list1), list2.length, index(workspace.indexMap2, list2));
+        SimilarityMetrics.stop(SimilarityMetrics.Metric.JACCARD_SIMILARITY, start, list1, list2.length, workspace);
+        return similarity;
+    }
+
+    /**
+     * calculate the similarity between 2 lists by comparing whether the order of common pairs is the same.
+     * Any pair containing an element not in the other list will be ignored.
+     * This metric will be 0 if all pairs are out of place in the other list.
+     * If either list contains less than 2 elements, the similarity will be 1.0, because there is no pair to compare.
+     * Discordant pairs are counted with a merge sort, so this runs in O(n log n) rather than comparing every pair.
+     * @param list1
+     * @param list2
+     * @return
+     */
+    public static double kendallSimilarity(List<Integer> list1, List<Integer> list2) {
+        return kendallSimilarity(toArray(list1), toArray(list2));
+    }
+
+    public static double kendallSimilarity(int[] list1, int[] list2) {
+        SimilarityWorkspace workspace = SimilarityWorkspace.local();
+        double similarity = kendallSimilarity(list1, list2, workspace);
+        workspace.trim();
+        return similarity;
+    }
+
+    public static double kendallSimilarity(int[] list1, int[] list2, SimilarityWorkspace workspace) {
+        long start = SimilarityMetrics.start();
+        if (list1.length < 2 || list2.length < 2) {
+            // if there are no pairs, the lists are incomparable
+            SimilarityMetrics.stopUnindexed(SimilarityMetrics.Metric.KENDALL_SIMILARITY, start, list1, list2, workspace);
+            return 1.0;
+        }
+        double similarity = kendallSimilarity(list1, index(workspace.indexMap1, list1), list2.length, index(workspace.indexMap2, list2), workspace);
+        SimilarityMetrics.stop(SimilarityMetrics.Metric.KENDALL_SIMILARITY, start, list1, list2.length, workspace);
+        return similarity;
+    }
+
+    /**
+     * calculate the similarity between 2 lists by comparing the difference between the index of common elements.
+     * This metric will approach 0 as the displacement between common elements increases, but it will never be equal to 0
+     * because if there is no common element there is nothing to penalize. It can only penalize disorder.
+     * @param list1
+     * @param list2
+     * @return
+     */
+    public static double displacementSimilarity(List<Integer> list1, List<Integer> list2) {
+        return displacementSimilarity(toArray(list1), toArray(list2));
+    }
+
+    public static double displacementSimilarity(int[] list1, int[] list2) {
+        SimilarityWorkspace workspace = SimilarityWorkspace.local();
+        double similarity = displacementSimilarity(list1, list2, workspace);
+        workspace.trim();
+        return similarity;
+    }
+
+    public static double displacementSimilarity(int[] list1, int[] list2, SimilarityWorkspace workspace) {
+        long start = SimilarityMetrics.start();
+        if (Math.max(list1.length, list2.length) <= 1) {
+            // either the lists have no common element or are equal
+            SimilarityMetrics.stopUnindexed(SimilarityMetrics.Metric.DISPLACEMENT_SIMILARITY, start, list1, list2, workspace);
+            return 1.0;
+        }
+        double similarity = displacementSimilarity(list1, index(workspace.indexMap1, list1), list2.length, index(workspace.indexMap2, list2));
+        SimilarityMetrics.stop(SimilarityMetrics.Metric.DISPLACEMENT_SIMILARITY, start, list1, list2.length, workspace);
+        return similarity;
+    }
+
+    /**
+     * calculate every metric of the pair at once. Both lists are indexed a single time and one pass over list1 gathers
+     * what all four metrics need, instead of each metric building its own sets and maps.
+     * @param list1
+     * @param list2
+     * @return
+     */
+    public static SimilarityReport similarityReport(List<Integer> list1, List<Integer> list2) {
+        return similarityReport(toArray(list1), toArray(list2));
+    }
+
+    public static SimilarityReport similarityReport(int[] list1, int[] list2) {
+        SimilarityWorkspace workspace = SimilarityWorkspace.local();
+        SimilarityReport report = similarityReport(list1, list2, workspace);
+        workspace.trim();
+        return report;
+    }
+
+    public static SimilarityReport similarityReport(int[] list1, int[] list2, SimilarityWorkspace workspace) {
+        long start = SimilarityMetrics.start();
+        SimilarityReport report = similarityReport(list1, index(workspace.indexMap1, list1), list2.length, index(workspace.indexMap2, list2), workspace);
+        SimilarityMetrics.stop(SimilarityMetrics.Metric.SIMILARITY_REPORT, start, list1, list2.length, workspace);
+        return report;
+    }
+
+    /**
+     * calculate every metric of list1 against each of the candidates, indexing list1 only once.
+     * @param list1
+     * @param candidates
+     * @return one report per candidate, in the same order
+     */
+    public static List<SimilarityReport> similarityReports(int[] list1, List<int[]> candidates) {
+        PreparedList prepared = new PreparedList(list1);
+        SimilarityWorkspace workspace = SimilarityWorkspace.local();
+        List<SimilarityReport> reports = new ArrayList<>(candidates.size());
+        for (int[] candidate : candidates) {
+            reports.add(prepared.similarityReport(candidate, workspace));
+        }
+        workspace.trim();
+        return reports;
+    }
+
+    /**
+     * compare only the heads of two ranked lists. The orderedSetSimilarity of the prefixes of length d is computed for
+     * every depth d up to the given depth, and the result is the average over those depths, so agreement near the top
+     * weighs more than agreement further down. Only the first depth positions of each list are read and the per-depth
+     * scores are built incrementally, so the work is proportional to the depth, not to the list lengths.
+     * A repeated element counts at its first position, so for lists with repeats the per-depth scores can differ from
+     * orderedSetSimilarity of the prefixes.
+     * @param list1
+     * @param list2
+     * @param depth the number of leading positions to compare, depths beyond the longer list are not counted
+     * @return
+     */
+    public static double depthLimitedSimilarity(List<Integer> list1, List<Integer> list2, int depth) {
+        return depthLimitedSimilarity(toArray(list1), toArray(list2), depth);
+    }
+
+    public static double depthLimitedSimilarity(int[] list1, int[] list2, int depth) {
+        SimilarityWorkspace workspace = SimilarityWorkspace.local();
+        double similarity = depthLimitedSimilarity(list1, list2, depth, 0.0, workspace);
+        workspace.trim();
+        return similarity;
+    }
+
+    /**
+     * the depth-limited similarity, stopping as soon as the average can no longer reach the threshold. Every per-depth
+     * score is at most 1, so after depth d the average is bounded by (sum of the first d scores + remaining depths) /
+     * depths.
+     * @param list1
+     * @param list2
+     * @param depth the number of leading positions to compare
+     * @param threshold the score the caller is interested in
+     * @param workspace scratch space, must not be shared between threads
+     * @return the depth-limited similarity, or an upper bound of it below threshold if the comparison stopped early
+     */
+    public static double depthLimitedSimilarity(int[] list1, int[] list2, int depth, double threshold, SimilarityWorkspace workspace) {
+        return depthLimitedSimilarity(list1, list2, depth, threshold, null, workspace);
+    }
+
+    /**
+     * @param list1
+     * @param list2
+     * @param depth the number of leading positions to compare
+     * @return the orderedSetSimilarity of the prefixes at every depth from 1 to min(depth, longer list length), with
+     * repeated elements counted at their first position
+     */
+    public static double[] depthSimilarities(int[] list1, int[] list2, int depth) {
+        double[] scores = new double[effectiveDepth(list1, list2, depth)];
+        SimilarityWorkspace workspace = SimilarityWorkspace.local();
+        depthLimitedSimilarity(list1, list2, depth, 0.0, scores, workspace);
+        workspace.trim();
+        return scores;
+    }
+
+    /*
+     * The kernels below work on lists that have already been indexed, so a caller that keeps the index of list1
+     * around (see PreparedList) only pays for indexing list2. Each index maps an element to its last index in the list.
+     */
+
+    static double orderedSetSimilarity(int[] list1, IntIntMap indexMap1, int length2, IntIntMap indexMap2) {
+        if (list1.length == 0 && length2 == 0) {
             // empty set always equals itself
             return 1.0;
         }
@@ -23,19 +235,21 @@ public class OrderedSetSimilarity {
         double jaccardSimilarity;
         double displacementSimilarity;
 
-        // map each item to its index in each list
-        Map<Integer, Integer> indexMap1 = new HashMap<>();
-        Map<Integer, Integer> indexMap2 = new HashMap<>();
+        // intersection and penalty in one pass over list1, an element is counted once at its last index
+        int intersectionSize = 0;
+        double totalPenalty = 0.0;
         for (int i = 0; i < list1.length; i++) {
-            indexMap1.put(list1[i], i);
-        }
-        for (int i = 0; i < list2.length; i++) {
-            indexMap2.put(list2[i], i);
+            int index2 = indexMap2.get(list1[i], -1);
+            if (index2 >= 0) {
+                int index1 = indexMap1.get(list1[i], -1);
+                if (index1 == i) {
+                    intersectionSize++;
+                }
+                totalPenalty += Math.abs(index1 - index2);
+            }
         }
 
-
         // intersection similarity
-        int intersectionSize = (int) indexMap1.keySet().stream().filter(indexMap2::containsKey).count();
         int unionSize = indexMap1.size() + indexMap2.size() - intersectionSize;
         jaccardSimilarity = (double) intersectionSize / unionSize;
 
@@ -44,19 +258,11 @@ public class OrderedSetSimilarity {
         }
 
         // displacement similarity
-        int maxListSize = Math.max(list1.length, list2.length);
+        int maxListSize = Math.max(list1.length, length2);
         if (maxListSize <= 1 || intersectionSize == 0) {
             // either the lists have no common element or are equal
             displacementSimilarity = 1.0;
         } else {
-            double totalPenalty = 0.0;
-            for (int i = 0; i < list1.length; i++) {
-                Integer element = list1[i];
-                if (indexMap2.containsKey(element)) {
-                    totalPenalty += Math.abs(indexMap1.get(element) - indexMap2.get(element));
-                }
-            }
-
             double maxPenalty = maxListSize * intersectionSize;
             displacementSimilarity =  1.0 - (totalPenalty / maxPenalty);
         }
@@ -64,132 +270,272 @@ public class OrderedSetSimilarity {
         return jaccardSimilarity * displacementSimilarity;
     }
 
-    /**
-     * calculate the Jaccard similarity between 2 lists. This compares intersection size to union size.
-     * It can only penalize omissions, not disorder.
-     * @param list1
-     * @param list2
-     * @return
-     */
-    public static double jaccardSimilarity(List<Integer> list1, List<Integer> list2) {
-        if (list1.isEmpty() && list2.isEmpty()) {
+    static double jaccardSimilarity(int[] list1, IntIntMap indexMap1, int length2, IntIntMap indexMap2) {
+        if (list1.length == 0 && length2 == 0) {
             // empty set always equals itself
             return 1.0;
         }
 
-        Set<Integer> set1 = new HashSet<>(list1);
-        Set<Integer> set2 = new HashSet<>(list2);
-
-        Set<Integer> intersection = new HashSet<>(set1);
-        intersection.retainAll(set2);
-
-        Set<Integer> union = new HashSet<>(set1);
-        union.addAll(set2);
-
-        return (double) intersection.size() / union.size();
+        int intersectionSize = intersectionSize(list1, indexMap1, indexMap2);
+        int unionSize = indexMap1.size() + indexMap2.size() - intersectionSize;
+        return (double) intersectionSize / unionSize;
     }
 
-    /**
-     * calculate the similarity between 2 lists by comparing whether the order of common pairs is the same.
-     * Any pair containing an element not in the other list will be ignored.
-     * This metric will be 0 if all pairs are out of place in the other list.
-     * If either list contains less than 2 elements, the similarity will be 1.0, because there is no pair to compare.
-     * @param list1
-     * @param list2
-     * @return
-     */
-    public static double kendallSimilarity(List<Integer> list1, List<Integer> list2) {
-        if (list1.size() < 2 || list2.size() < 2) {
+    static double kendallSimilarity(int[] list1, IntIntMap indexMap1, int length2, IntIntMap indexMap2, SimilarityWorkspace workspace) {
+        if (list1.length < 2 || length2 < 2) {
             // if there are no pairs, the lists are incomparable
             return 1.0;
         }
 
-        Set<Integer> set1 = new HashSet<>(list1);
-        Set<Integer> set2 = new HashSet<>(list2);
-
-        Set<Integer> intersection = new HashSet<>(set1);
-        intersection.retainAll(set2);
-        int intersectionSize = intersection.size();
-
+        int intersectionSize = intersectionSize(list1, indexMap1, indexMap2);
         if (intersectionSize < 2) {
             // if there are no common pairs then the lists are incomparable
             return 1.0;
         }
 
-        int concordant = 0;
-        int discordant = 0;
+        // the index in list2 of every element of list1 that is also in list2, in list1 order
+        int[] indexes = workspace.scratch(list1.length);
+        int commonSize = 0;
+        for (int element : list1) {
+            int index = indexMap2.get(element, -1);
+            if (index >= 0) {
+                indexes[commonSize++] = index;
+            }
+        }
+
+        // a pair is discordant unless the later element of list1 also comes later in list2
+        long pairs = (long) commonSize * (commonSize - 1) / 2;
+        long discordant = countNonIncreasingPairs(indexes, commonSize, workspace.buffer(commonSize));
+        long concordant = pairs - discordant;
 
-        // Create a map to store the index of each element in list2
-        Map<Integer, Integer> indexMap = new HashMap<>();
-        for (int i = 0; i < list2.size(); i++) {
-            indexMap.put(list2.get(i), i);
+        return 0.5 * (1 + (concordant - discordant) / (0.5 * intersectionSize * (intersectionSize - 1)));
+    }
+
+    static double displacementSimilarity(int[] list1, IntIntMap indexMap1, int length2, IntIntMap indexMap2) {
+        int maxListSize = Math.max(list1.length, length2);
+        if (maxListSize <= 1) {
+            // either the lists have no common element or are equal
+            return 1.0;
         }
 
-        for (int i = 0; i < list1.size() - 1; i++) {
-            Integer indexOfI = indexMap.get(list1.get(i));
-            if (indexOfI == null) {
-                continue;
+        double totalPenalty = 0.0;
+        int commonElements = 0;
+
+        for (int i = 0; i < list1.length; i++) {
+            int index2 = indexMap2.get(list1[i], -1);
+            if (index2 >= 0 && indexMap1.get(list1[i], -1) == i) {
+                totalPenalty += Math.abs(i - index2);
+                commonElements++;
             }
-            for (int j = i + 1; j < list1.size(); j++) {
-                Integer indexOfJ = indexMap.get(list1.get(j));
-                if (indexOfJ == null) {
-                    continue;
-                }
+        }
 
-                if (indexOfI < indexOfJ) {
-                    concordant++;
-                } else {
-                    discordant++;
+        if (commonElements == 0) {
+            return 1.0;
+        }
+
+        double maxPenalty = maxListSize * commonElements;
+        return 1.0 - (totalPenalty / maxPenalty);
+    }
+
+    static SimilarityReport similarityReport(int[] list1, IntIntMap indexMap1, int length2, IntIntMap indexMap2, SimilarityWorkspace workspace) {
+        // one pass over list1 for the intersection, both penalties and the list2 indexes of the common elements
+        int[] indexes = workspace.scratch(list1.length);
+        int commonSize = 0;
+        int intersectionSize = 0;
+        long totalPenalty = 0;
+        long distinctPenalty = 0;
+        for (int i = 0; i < list1.length; i++) {
+            int index2 = indexMap2.get(list1[i], -1);
+            if (index2 >= 0) {
+                int index1 = indexMap1.get(list1[i], -1);
+                if (index1 == i) {
+                    intersectionSize++;
+                    distinctPenalty += Math.abs(i - index2);
                 }
+                totalPenalty += Math.abs(index1 - index2);
+                indexes[commonSize++] = index2;
             }
         }
+        int unionSize = indexMap1.size() + indexMap2.size() - intersectionSize;
+        int maxListSize = Math.max(list1.length, length2);
+        boolean bothEmpty = list1.length == 0 && length2 == 0;
+
+        double jaccardSimilarity = bothEmpty ? 1.0 : (double) intersectionSize / unionSize;
+
+        double orderedSetSimilarity;
+        if (bothEmpty) {
+            orderedSetSimilarity = 1.0;
+        } else if (jaccardSimilarity == 0.0) {
+            orderedSetSimilarity = 0.0;
+        } else if (maxListSize <= 1) {
+            orderedSetSimilarity = jaccardSimilarity;
+        } else {
+            double maxPenalty = maxListSize * intersectionSize;
+            orderedSetSimilarity = jaccardSimilarity * (1.0 - (totalPenalty / maxPenalty));
+        }
 
-        return 0.5 * (1 + (concordant - discordant) / (0.5 * intersectionSize * (intersectionSize - 1)));
+        double kendallSimilarity;
+        if (list1.length < 2 || length2 < 2 || intersectionSize < 2) {
+            kendallSimilarity = 1.0;
+        } else {
+            long pairs = (long) commonSize * (commonSize - 1) / 2;
+            long discordant = countNonIncreasingPairs(indexes, commonSize, workspace.buffer(commonSize));
+            long concordant = pairs - discordant;
+            kendallSimilarity = 0.5 * (1 + (concordant - discordant) / (0.5 * intersectionSize * (intersectionSize - 1)));
+        }
+
+        double displacementSimilarity;
+        if (maxListSize <= 1 || intersectionSize == 0) {
+            displacementSimilarity = 1.0;
+        } else {
+            double maxPenalty = maxListSize * intersectionSize;
+            displacementSimilarity = 1.0 - (distinctPenalty / maxPenalty);
+        }
+
+        return new SimilarityReport(orderedSetSimilarity, jaccardSimilarity, kendallSimilarity, displacementSimilarity,
+                intersectionSize, unionSize, totalPenalty);
     }
 
     /**
-     * calculate the similarity between 2 lists by comparing the difference between the index of common elements.
-     * This metric will approach 0 as the displacement between common elements increases, but it will never be equal to 0
-     * because if there is no common element there is nothing to penalize. It can only penalize disorder.
-     * @param list1
-     * @param list2
-     * @return
+     * walk both lists one depth at a time. Each index maps an element to its first position, and adding the elements
+     * at position d - 1 only changes the intersection, the distinct counts and the penalty by the terms of those two
+     * elements.
+     * @param scores receives the per-depth scores if not null
      */
-    public static double displacementSimilarity(List<Integer> list1, List<Integer> list2) {
-        int maxListSize = Math.max(list1.size(), list2.size());
-        if (maxListSize <= 1) {
-            // either the lists have no common element or are equal
+    static double depthLimitedSimilarity(int[] list1, int[] list2, int depth, double threshold, double[] scores, SimilarityWorkspace workspace) {
+        int depths = effectiveDepth(list1, list2, depth);
+        if (depths == 0) {
+            // empty set always equals itself
             return 1.0;
         }
+        IntIntMap indexMap1 = workspace.indexMap1;
+        IntIntMap indexMap2 = workspace.indexMap2;
+        indexMap1.clear(depths);
+        indexMap2.clear(depths);
+
+        int intersectionSize = 0;
+        long totalPenalty = 0;
+        double sum = 0.0;
+        for (int d = 1; d <= depths; d++) {
+            int position = d - 1;
+            if (position < list1.length && !indexMap1.containsKey(list1[position])) {
+                indexMap1.put(list1[position], position);
+                int index2 = indexMap2.get(list1[position], -1);
+                if (index2 >= 0) {
+                    intersectionSize++;
+                    totalPenalty += Math.abs(position - index2);
+                }
+            }
+            if (position < list2.length && !indexMap2.containsKey(list2[position])) {
+                indexMap2.put(list2[position], position);
+                int index1 = indexMap1.get(list2[position], -1);
+                if (index1 >= 0) {
+                    intersectionSize++;
+                    totalPenalty += Math.abs(index1 - position);
+                }
+            }
 
-        Map<Integer, Integer> indexMap1 = new HashMap<>();
-        Map<Integer, Integer> indexMap2 = new HashMap<>();
+            // orderedSetSimilarity of the prefixes
+            double score;
+            double jaccardSimilarity = (double) intersectionSize / (indexMap1.size() + indexMap2.size() - intersectionSize);
+            int maxListSize = Math.max(Math.min(d, list1.length), Math.min(d, list2.length));
+            if (jaccardSimilarity == 0.0 || maxListSize <= 1) {
+                score = jaccardSimilarity;
+            } else {
+                double maxPenalty = maxListSize * intersectionSize;
+                score = jaccardSimilarity * (1.0 - (totalPenalty / maxPenalty));
+            }
+            if (scores != null) {
+                scores[position] = score;
+            }
 
-        for (int i = 0; i < list1.size(); i++) {
-            indexMap1.put(list1.get(i), i);
+            sum += score;
+            double upperBound = (sum + (depths - d)) / depths;
+            if (upperBound < threshold) {
+                return upperBound;
+            }
         }
+        return sum / depths;
+    }
 
-        for (int i = 0; i < list2.size(); i++) {
-            indexMap2.put(list2.get(i), i);
+    private static int effectiveDepth(int[] list1, int[] list2, int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("depth must be positive: " + depth);
         }
+        return Math.min(depth, Math.max(list1.length, list2.length));
+    }
 
-        double totalPenalty = 0.0;
-        int commonElements = 0;
+    /**
+     * count the pairs i < j with values[i] >= values[j] with a bottom-up merge sort, in O(n log n) instead of
+     * comparing every pair. Both values and buffer are overwritten.
+     * @param values
+     * @param count
+     * @param buffer at least count elements of scratch space
+     * @return
+     */
+    static long countNonIncreasingPairs(int[] values, int count, int[] buffer) {
+        long pairs = 0;
+        int[] from = values;
+        int[] to = buffer;
+        for (int width = 1; width < count; width *= 2) {
+            for (int start = 0; start < count; start += 2 * width) {
+                int middle = Math.min(start + width, count);
+                int end = Math.min(start + 2 * width, count);
+                int left = start;
+                int right = middle;
+                int out = start;
+                while (left < middle && right < end) {
+                    if (from[left] < from[right]) {
+                        to[out++] = from[left++];
+                    } else {
+                        // every remaining left value is at least from[right] and comes before it
+                        pairs += middle - left;
+                        to[out++] = from[right++];
+                    }
+                }
+                while (left < middle) {
+                    to[out++] = from[left++];
+                }
+                while (right < end) {
+                    to[out++] = from[right++];
+                }
+            }
+            int[] swap = from;
+            from = to;
+            to = swap;
+        }
+        return pairs;
+    }
 
-        for (Integer element : indexMap1.keySet()) {
-            if (indexMap2.containsKey(element)) {
-                int index1 = indexMap1.get(element);
-                int index2 = indexMap2.get(element);
-                totalPenalty += Math.abs(index1 - index2);
-                commonElements++;
+    /**
+     * @return the number of distinct elements of list1 that are also in list2
+     */
+    static int intersectionSize(int[] list1, IntIntMap indexMap1, IntIntMap indexMap2) {
+        int intersectionSize = 0;
+        for (int i = 0; i < list1.length; i++) {
+            // only count an element at its last index so duplicates are counted once
+            if (indexMap1.get(list1[i], -1) == i && indexMap2.containsKey(list1[i])) {
+                intersectionSize++;
             }
         }
+        return intersectionSize;
+    }
 
-        if (commonElements == 0) {
-            return 1.0;
+    /**
+     * map each item of the list to its last index in the list.
+     * @param indexMap the map to reuse, its previous content is discarded
+     * @param list
+     * @return indexMap
+     */
+    static IntIntMap index(IntIntMap indexMap, int[] list) {
+        indexMap.clear(list.length);
+        for (int i = 0; i < list.length; i++) {
+            indexMap.put(list[i], i);
         }
+        return indexMap;
+    }
 
-        double maxPenalty = maxListSize * commonElements;
-        return 1.0 - (totalPenalty / maxPenalty);
+    static int[] toArray(List<Integer> list) {
+        return list.stream().mapToInt(i -> i).toArray();
     }
 }
@@ -0,0 +1,192 @@
+package orderedSetSimilarity;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * a compact, read-only corpus of lists: the elements of all lists concatenated into one int buffer, plus the offset of
+ * every list and its number of distinct elements. That is 4 bytes per element and 8 bytes per list instead of an
+ * object per list and per element, and a scan over the corpus reads memory sequentially.
+ * The buffers are either on the heap or off-heap in direct memory; an off-heap corpus holds at most 2^29 elements.
+ * A packed corpus can be shared between threads.
+ */
+public final class PackedCorpus {
+
+    private final IntBuffer elements;
+    // list i is elements[offsets[i]] .. elements[offsets[i + 1] - 1]
+    private final IntBuffer offsets;
+    private final IntBuffer distinctCounts;
+
+    PackedCorpus(IntBuffer elements, IntBuffer offsets, IntBuffer distinctCounts) {
+        this.elements = elements;
+        this.offsets = offsets;
+        this.distinctCounts = distinctCounts;
+    }
+
+    public static PackedCorpus of(List<int[]> lists) {
+        Builder builder = new Builder();
+        lists.forEach(builder::add);
+        return builder.build();
+    }
+
+    /**
+     * @return the number of lists
+     */
+    public int size() {
+        return offsets.limit() - 1;
+    }
+
+    /**
+     * @return the total number of elements of all lists
+     */
+    public int elementCount() {
+        return offsets.get(size());
+    }
+
+    public int length(int list) {
+        return offsets.get(list + 1) - offsets.get(list);
+    }
+
+    public int distinctCount(int list) {
+        return distinctCounts.get(list);
+    }
+
+    /**
+     * @return a copy of the elements of the list
+     */
+    public int[] get(int list) {
+        int[] copy = new int[length(list)];
+        elements.get(offsets.get(list), copy);
+        return copy;
+    }
+
+    /**
+     * score the query against the lists from (inclusive) to to (exclusive) without materializing them.
+     * @param query
+     * @param from
+     * @param to
+     * @param scores receives orderedSetSimilarity(query, list i) at scores[i - from]
+     * @param workspace
+     */
+    public void orderedSetSimilarity(PreparedList query, int from, int to, double[] scores, SimilarityWorkspace workspace) {
+        for (int list = from; list < to; list++) {
+            scores[list - from] = query.orderedSetSimilarity(length(list), index(list, workspace));
+        }
+    }
+
+    public double[] orderedSetSimilarity(PreparedList query) {
+        double[] scores = new double[size()];
+        SimilarityWorkspace workspace = SimilarityWorkspace.local();
+        orderedSetSimilarity(query, 0, size(), scores, workspace);
+        workspace.trim();
+        return scores;
+    }
+
+    /**
+     * find the k lists with the highest orderedSetSimilarity to the query among the lists from (inclusive) to to
+     * (exclusive). The distinct counts are stored, so a list that cannot beat the k-th best score is skipped before it is
+     * even read.
+     * @return the same matches as scoring and sorting the range, best first, ties broken by the lower index
+     */
+    public List<Match> topK(PreparedList query, int from, int to, int k, SimilarityWorkspace workspace) {
+        TopKCollector collector = new TopKCollector(k);
+        for (int list = from; list < to; list++) {
+            if (!collector.accepts(SimilaritySearch.jaccardUpperBound(query.distinctCount(), distinctCount(list)), list)) {
+                continue;
+            }
+            collector.offer(list, query.orderedSetSimilarity(length(list), index(list, workspace)));
+        }
+        return collector.toList();
+    }
+
+    public List<Match> topK(int[] query, int k) {
+        SimilarityWorkspace workspace = SimilarityWorkspace.local();
+        List<Match> matches = topK(new PreparedList(query), 0, size(), k, workspace);
+        workspace.trim();
+        return matches;
+    }
+
+    /**
+     * index the list into the candidate table of the workspace.
+     */
+    IntIntMap index(int list, SimilarityWorkspace workspace) {
+        int start = offsets.get(list);
+        int end = offsets.get(list + 1);
+        IntIntMap indexMap = workspace.indexMap2;
+        indexMap.clear(end - start);
+        for (int i = start; i < end; i++) {
+            indexMap.put(elements.get(i), i - start);
+        }
+        return indexMap;
+    }
+
+    IntBuffer elements() {
+        return elements;
+    }
+
+    IntBuffer offsets() {
+        return offsets;
+    }
+
+    IntBuffer distinctCounts() {
+        return distinctCounts;
+    }
+
+    /**
+     * appends lists one at a time, so a corpus can be packed without holding every list as an object first.
+     */
+    public static final class Builder {
+        private int[] elements = new int[1024];
+        private int[] offsets = new int[64];
+        private int[] distinctCounts = new int[64];
+        private int size;
+        private final IntIntMap distinct = new IntIntMap();
+
+        public Builder add(int[] list) {
+            int start = offsets[size];
+            if (start + list.length > elements.length) {
+                elements = Arrays.copyOf(elements, (int) Math.min(Integer.MAX_VALUE - 8, Math.max(start + (long) list.length, 2L * elements.length)));
+            }
+            if (size + 2 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, 2 * offsets.length);
+                distinctCounts = Arrays.copyOf(distinctCounts, 2 * distinctCounts.length);
+            }
+            System.arraycopy(list, 0, elements, start, list.length);
+            distinctCounts[size] = OrderedSetSimilarity.index(distinct, list).size();
+            offsets[++size] = start + list.length;
+            return this;
+        }
+
+        public Builder add(List<Integer> list) {
+            return add(OrderedSetSimilarity.toArray(list));
+        }
+
+        public PackedCorpus build() {
+            return new PackedCorpus(
+                    IntBuffer.wrap(Arrays.copyOf(elements, offsets[size])),
+                    IntBuffer.wrap(Arrays.copyOf(offsets, size + 1)),
+                    IntBuffer.wrap(Arrays.copyOf(distinctCounts, size)));
+        }
+
+        /**
+         * @return a corpus whose buffers live in direct memory, outside the garbage collected heap
+         */
+        public PackedCorpus buildOffHeap() {
+            return new PackedCorpus(
+                    direct(elements, offsets[size]),
+                    direct(offsets, size + 1),
+                    direct(distinctCounts, size));
+        }
+
+        private static IntBuffer direct(int[] values, int length) {
+            IntBuffer buffer = ByteBuffer.allocateDirect(Math.multiplyExact(length, Integer.BYTES))
+                    .order(ByteOrder.nativeOrder())
+                    .asIntBuffer();
+            buffer.put(values, 0, length).flip();
+            return buffer;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package orderedSetSimilarity;
+
+import java.util.List;
+
+/**
+ * a list that has been indexed once so it can be compared against many candidate lists.
+ * Every similarity method gives the same result as the static method in {@link OrderedSetSimilarity} with this list
+ * as list1 and the candidate as list2, but only the candidate has to be indexed per comparison.
+ * A prepared list is immutable and can be shared between threads; the workspaces passed to it cannot.
+ */
+public final class PreparedList {
+
+    private final int[] list;
+    private final IntIntMap indexMap;
+
+    public PreparedList(int[] list) {
+        this.list = list.clone();
+        this.indexMap = OrderedSetSimilarity.index(new IntIntMap(list.length), this.list);
+    }
+
+    public PreparedList(List<Integer> list) {
+        this(OrderedSetSimilarity.toArray(list));
+    }
+
+    /**
+     * @return the number of elements in the list, including duplicates
+     */
+    public int size() {
+        return list.length;
+    }
+
+    /**
+     * @return the number of distinct elements in the list
+     */
+    public int distinctCount() {
+        return indexMap.size();
+    }
+
+    public double orderedSetSimilarity(int[] candidate) {
+        SimilarityWorkspace workspace = SimilarityWorkspace.local();
+        double similarity = orderedSetSimilarity(candidate, workspace);
+        workspace.trim();
+        return similarity;
+    }
+
+    public double orderedSetSimilarity(int[] candidate, SimilarityWorkspace workspace) {
+        return OrderedSetSimilarity.orderedSetSimilarity(list, indexMap, candidate.length, index(candidate, workspace));
+    }
+
+    public double jaccardSimilarity(int[] candidate) {
+        SimilarityWorkspace workspace = SimilarityWorkspace.local();
+        double similarity = jaccardSimilarity(candidate, workspace);
+        workspace.trim();
+        return similarity;
+    }
+
+    public double jaccardSimilarity(int[] candidate, SimilarityWorkspace workspace) {
+        return OrderedSetSimilarity.jaccardSimilarity(list, indexMap, candidate.length, index(candidate, workspace));
+    }
+
+    public double kendallSimilarity(int[] candidate) {
+        SimilarityWorkspace workspace = SimilarityWorkspace.local();
+        double similarity = kendallSimilarity(candidate, workspace);
+        workspace.trim();
+        return similarity;
+    }
+
+    public double kendallSimilarity(int[] candidate, SimilarityWorkspace workspace) {
+        if (list.length < 2 || candidate.length < 2) {
+            // if there are no pairs, the lists are incomparable
+            return 1.0;
+        }
+        return OrderedSetSimilarity.kendallSimilarity(list, indexMap, candidate.length, index(candidate, workspace), workspace);
+    }
+
+    public double displacementSimilarity(int[] candidate) {
+        SimilarityWorkspace workspace = SimilarityWorkspace.local();
+        double similarity = displacementSimilarity(candidate, workspace);
+        workspace.trim();
+        return similarity;
+    }
+
+    public double displacementSimilarity(int[] candidate, SimilarityWorkspace workspace) {
+        if (Math.max(list.length, candidate.length) <= 1) {
+            // either the lists have no common element or are equal
+            return 1.0;
+        }
+        return OrderedSetSimilarity.displacementSimilarity(list, indexMap, candidate.length, index(candidate, workspace));
+    }
+
+    public SimilarityReport similarityReport(int[] candidate) {
+        SimilarityWorkspace workspace = SimilarityWorkspace.local();
+        SimilarityReport report = similarityReport(candidate, workspace);
+        workspace.trim();
+        return report;
+    }
+
+    public SimilarityReport similarityReport(int[] candidate, SimilarityWorkspace workspace) {
+        return OrderedSetSimilarity.similarityReport(list, indexMap, candidate.length, index(candidate, workspace), workspace);
+    }
+
+    /**
+     * @return the prepared elements, which must not be modified
+     */
+    int[] elements() {
+        return list;
+    }
+
+    /**
+     * orderedSetSimilarity against a candidate that has already been indexed into the given map.
+     */
+    double orderedSetSimilarity(int candidateLength, IntIntMap candidateIndexMap) {
+        return OrderedSetSimilarity.orderedSetSimilarity(list, indexMap, candidateLength, candidateIndexMap);
+    }
+
+    static IntIntMap index(int[] candidate, SimilarityWorkspace workspace) {
+        return OrderedSetSimilarity.index(workspace.indexMap2, candidate);
+    }
+}
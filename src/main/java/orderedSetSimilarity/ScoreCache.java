@@ -0,0 +1,169 @@
+package orderedSetSimilarity;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleBiFunction;
+
+/**
+ * bounded concurrent cache of scores in front of a similarity metric, for traffic that compares the same pairs of
+ * lists over and over. A pair is keyed by the fingerprints of both lists in order, so a repeated pair costs a hash
+ * probe instead of a comparison; two different pairs share a key only if both 64-bit fingerprints collide.
+ * The cache is set associative: a pair can only live in one set of WAYS slots, and a full set evicts with the CLOCK
+ * algorithm, which approximates LRU with a reference bit per slot. The tables are flat primitive arrays allocated up
+ * front and the sets are guarded by striped locks, so lookups do not allocate and rarely contend.
+ * The metric runs outside the locks, two threads missing on the same pair may both compute it.
+ */
+public final class ScoreCache {
+
+    static final int WAYS = 8;
+    private static final int LOCK_STRIPES = 64;
+
+    private final ToDoubleBiFunction<int[], int[]> scorer;
+    private final int setMask;
+    private final Object[] locks;
+
+    private final long[] keys1;
+    private final long[] keys2;
+    private final double[] scores;
+    private final boolean[] used;
+    private final boolean[] referenced;
+    // the next way the CLOCK hand of every set looks at
+    private final byte[] hands;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * a cache of orderedSetSimilarity scores.
+     * @param capacity the maximum number of pairs, rounded up to a power of two of at least WAYS
+     */
+    public ScoreCache(int capacity) {
+        this(capacity, OrderedSetSimilarity::orderedSetSimilarity);
+    }
+
+    /**
+     * @param capacity the maximum number of pairs, rounded up to a power of two of at least WAYS
+     * @param scorer the metric to cache, which must be a pure function of the two lists and thread safe
+     */
+    public ScoreCache(int capacity, ToDoubleBiFunction<int[], int[]> scorer) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must be in [1, 2^30]: " + capacity);
+        }
+        this.scorer = scorer;
+        int sets = Math.max(1, Integer.highestOneBit(Math.max(1, (capacity + WAYS - 1) / WAYS) * 2 - 1));
+        this.setMask = sets - 1;
+        this.locks = new Object[Math.min(sets, LOCK_STRIPES)];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        keys1 = new long[sets * WAYS];
+        keys2 = new long[sets * WAYS];
+        scores = new double[sets * WAYS];
+        used = new boolean[sets * WAYS];
+        referenced = new boolean[sets * WAYS];
+        hands = new byte[sets];
+    }
+
+    /**
+     * @param list1
+     * @param list2
+     * @return the score of the pair, from the cache if it has been computed before
+     */
+    public double score(FingerprintedList list1, FingerprintedList list2) {
+        long key1 = list1.fingerprint();
+        long key2 = list2.fingerprint();
+        int set = (int) FingerprintedList.mix(key1 * 31 + key2) & setMask;
+        Object lock = locks[set & (locks.length - 1)];
+        synchronized (lock) {
+            int slot = find(set, key1, key2);
+            if (slot >= 0) {
+                referenced[slot] = true;
+                hits.increment();
+                return scores[slot];
+            }
+        }
+
+        misses.increment();
+        double score = scorer.applyAsDouble(list1.elements(), list2.elements());
+        synchronized (lock) {
+            if (find(set, key1, key2) < 0) {
+                int slot = victim(set);
+                keys1[slot] = key1;
+                keys2[slot] = key2;
+                scores[slot] = score;
+                used[slot] = true;
+                referenced[slot] = false;
+            }
+        }
+        return score;
+    }
+
+    /**
+     * remove every pair, the statistics are kept.
+     */
+    public void clear() {
+        for (int set = 0; set <= setMask; set++) {
+            synchronized (locks[set & (locks.length - 1)]) {
+                Arrays.fill(used, set * WAYS, set * WAYS + WAYS, false);
+            }
+        }
+    }
+
+    /**
+     * @return the maximum number of pairs the cache holds
+     */
+    public int capacity() {
+        return used.length;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return the share of lookups answered from the cache, 0 if there were none
+     */
+    public double hitRate() {
+        long hits = hits();
+        long lookups = hits + misses();
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    private int find(int set, long key1, long key2) {
+        for (int slot = set * WAYS; slot < set * WAYS + WAYS; slot++) {
+            if (used[slot] && keys1[slot] == key1 && keys2[slot] == key2) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return a free slot of the set, or else the first slot the CLOCK hand finds without its reference bit, clearing
+     * the bits it passes
+     */
+    private int victim(int set) {
+        for (int slot = set * WAYS; slot < set * WAYS + WAYS; slot++) {
+            if (!used[slot]) {
+                return slot;
+            }
+        }
+        int hand = hands[set];
+        while (referenced[set * WAYS + hand]) {
+            referenced[set * WAYS + hand] = false;
+            hand = (hand + 1) & (WAYS - 1);
+        }
+        hands[set] = (byte) ((hand + 1) & (WAYS - 1));
+        evictions.increment();
+        return set * WAYS + hand;
+    }
+}
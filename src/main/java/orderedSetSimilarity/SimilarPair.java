@@ -0,0 +1,10 @@
+package orderedSetSimilarity;
+
+/**
+ * a pair of lists found by a similarity join.
+ * @param left the index of the first list, always smaller than right
+ * @param right the index of the second list
+ * @param score the orderedSetSimilarity of the left list to the right list
+ */
+public record SimilarPair(int left, int right, double score) {
+}
@@ -0,0 +1,222 @@
+package orderedSetSimilarity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * find every pair of lists whose orderedSetSimilarity is at least a threshold t, without comparing all pairs.
+ * The displacement factor is at most 1, so a pair can only qualify if its Jaccard similarity is at least t as well,
+ * and the join filters on that:
+ * <ul>
+ *     <li>size filter: two lists with d1 <= d2 distinct elements need d1 >= t * d2</li>
+ *     <li>prefix filter: with the distinct elements of every list ordered from globally rarest to most frequent, two
+ *     lists with Jaccard similarity >= t share an element among the first d - ceil(t * d) + 1 elements of each</li>
+ * </ul>
+ * Only the prefixes are indexed, and ordering by frequency keeps their posting lists short. The pairs that survive
+ * both filters are verified with the exact metric. The probe side is split into partitions that run on a ForkJoinPool.
+ * Scores are orderedSetSimilarity(lists.get(left), lists.get(right)), which is symmetric for lists without repeated
+ * elements.
+ */
+public class SimilarityJoin {
+
+    // probe lists per leaf task
+    private static final int PARTITION_SIZE = 256;
+    // tolerance of t * d, so 0.7 * 10 is 7 and not 7.000000000000001
+    private static final double EPSILON = 1e-9;
+
+    public static List<SimilarPair> join(List<int[]> lists, double threshold) {
+        return join(lists, threshold, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param lists the lists to join, must not change during the join
+     * @param threshold the minimum orderedSetSimilarity, in (0, 1]
+     * @param pool the pool the partitions are scheduled on
+     * @return every pair left < right with a score of at least threshold, ordered by left and then right
+     */
+    public static List<SimilarPair> join(List<int[]> lists, double threshold, ForkJoinPool pool) {
+        if (!(threshold > 0.0 && threshold <= 1.0)) {
+            throw new IllegalArgumentException("threshold must be in (0, 1]: " + threshold);
+        }
+        PrefixIndex index = new PrefixIndex(lists, threshold);
+        List<SimilarPair> pairs = pool.invoke(new Partition(index, 0, lists.size()));
+        pairs.sort(Comparator.comparingInt(SimilarPair::left).thenComparingInt(SimilarPair::right));
+        return pairs;
+    }
+
+    /**
+     * @return the number of distinct elements two lists must have in common for a Jaccard similarity of threshold,
+     * if one of them has the given number of distinct elements
+     */
+    static int minOverlap(int distinct, double threshold) {
+        return (int) Math.ceil(threshold * distinct - EPSILON);
+    }
+
+    /**
+     * the distinct elements of every list as frequency ranks, and an inverted index of the prefixes.
+     */
+    private static final class PrefixIndex {
+        final List<int[]> lists;
+        final double threshold;
+        // ranks of the distinct elements of every list, ascending, so the rarest element comes first
+        final int[][] ranks;
+        // CSR posting lists of the prefixes: the lists with rank r in their prefix are postings[offsets[r]] ..
+        final int[] offsets;
+        final int[] postings;
+        // the lists without elements, ascending
+        final int[] empty;
+
+        PrefixIndex(List<int[]> lists, double threshold) {
+            this.lists = lists;
+            this.threshold = threshold;
+
+            int[][] sets = new int[lists.size()][];
+            IntIntMap frequencies = new IntIntMap();
+            for (int i = 0; i < sets.length; i++) {
+                int[] set = lists.get(i).clone();
+                sets[i] = Arrays.copyOf(set, SimilaritySearch.sortedUnique(set, set.length));
+                for (int element : sets[i]) {
+                    frequencies.put(element, frequencies.get(element, 0) + 1);
+                }
+            }
+
+            // order the elements by frequency, ties by element, packed as (frequency, element) longs
+            long[] order = new long[frequencies.size()];
+            IntIntMap rankOf = new IntIntMap(order.length);
+            int next = 0;
+            for (int[] set : sets) {
+                for (int element : set) {
+                    if (!rankOf.containsKey(element)) {
+                        rankOf.put(element, 0);
+                        order[next++] = (long) frequencies.get(element, 0) << 32 | (element & 0xFFFFFFFFL);
+                    }
+                }
+            }
+            Arrays.sort(order);
+            for (int rank = 0; rank < order.length; rank++) {
+                rankOf.put((int) order[rank], rank);
+            }
+
+            ranks = new int[sets.length][];
+            offsets = new int[order.length + 1];
+            int emptyCount = 0;
+            for (int i = 0; i < sets.length; i++) {
+                if (sets[i].length == 0) {
+                    emptyCount++;
+                }
+                int[] listRanks = new int[sets[i].length];
+                for (int j = 0; j < listRanks.length; j++) {
+                    listRanks[j] = rankOf.get(sets[i][j], -1);
+                }
+                Arrays.sort(listRanks);
+                ranks[i] = listRanks;
+                for (int j = 0; j < prefixLength(i); j++) {
+                    offsets[listRanks[j] + 1]++;
+                }
+            }
+            for (int rank = 0; rank < order.length; rank++) {
+                offsets[rank + 1] += offsets[rank];
+            }
+            empty = new int[emptyCount];
+            for (int i = 0, e = 0; i < sets.length; i++) {
+                if (sets[i].length == 0) {
+                    empty[e++] = i;
+                }
+            }
+            postings = new int[offsets[order.length]];
+            int[] fill = Arrays.copyOf(offsets, order.length);
+            for (int i = 0; i < ranks.length; i++) {
+                for (int j = 0; j < prefixLength(i); j++) {
+                    postings[fill[ranks[i][j]]++] = i;
+                }
+            }
+        }
+
+        int prefixLength(int list) {
+            int distinct = ranks[list].length;
+            return Math.min(distinct, distinct - minOverlap(distinct, threshold) + 1);
+        }
+    }
+
+    /**
+     * probes the lists [from, to) against the prefix index, splitting the range in halves down to PARTITION_SIZE.
+     * Every pair is reported by its left list, which only looks at candidates with a larger index.
+     */
+    @SuppressWarnings("serial") // never serialized, only run by a ForkJoinPool
+    private static final class Partition extends RecursiveTask<List<SimilarPair>> {
+        private final PrefixIndex index;
+        private final int from;
+        private final int to;
+
+        Partition(PrefixIndex index, int from, int to) {
+            this.index = index;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<SimilarPair> compute() {
+            if (to - from > PARTITION_SIZE) {
+                int middle = (from + to) >>> 1;
+                Partition right = new Partition(index, middle, to);
+                right.fork();
+                List<SimilarPair> pairs = new Partition(index, from, middle).compute();
+                pairs.addAll(right.join());
+                return pairs;
+            }
+
+            List<SimilarPair> pairs = new ArrayList<>();
+            SimilarityWorkspace workspace = SimilarityWorkspace.local();
+            IntIntMap candidates = new IntIntMap();
+            int[] candidateBuffer = new int[16];
+            for (int left = from; left < to; left++) {
+                int distinct = index.ranks[left].length;
+                if (distinct == 0) {
+                    // empty lists have no prefix, but are equal to each other
+                    for (int e = Arrays.binarySearch(index.empty, left) + 1; e < index.empty.length; e++) {
+                        pairs.add(new SimilarPair(left, index.empty[e], 1.0));
+                    }
+                    continue;
+                }
+
+                int minDistinct = minOverlap(distinct, index.threshold);
+                double maxDistinct = distinct / index.threshold + EPSILON;
+                candidates.clear(16);
+                int candidateCount = 0;
+                for (int j = 0; j < index.prefixLength(left); j++) {
+                    int rank = index.ranks[left][j];
+                    for (int p = index.offsets[rank]; p < index.offsets[rank + 1]; p++) {
+                        int right = index.postings[p];
+                        int rightDistinct = index.ranks[right].length;
+                        if (right <= left || rightDistinct < minDistinct || rightDistinct > maxDistinct || candidates.containsKey(right)) {
+                            continue;
+                        }
+                        candidates.put(right, 0);
+                        if (candidateCount == candidateBuffer.length) {
+                            candidateBuffer = Arrays.copyOf(candidateBuffer, candidateCount * 2);
+                        }
+                        candidateBuffer[candidateCount++] = right;
+                    }
+                }
+                if (candidateCount == 0) {
+                    continue;
+                }
+
+                PreparedList prepared = new PreparedList(index.lists.get(left));
+                for (int c = 0; c < candidateCount; c++) {
+                    int right = candidateBuffer[c];
+                    double score = prepared.orderedSetSimilarity(index.lists.get(right), workspace);
+                    if (score >= index.threshold) {
+                        pairs.add(new SimilarPair(left, right, score));
+                    }
+                }
+            }
+            workspace.trim();
+            return pairs;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package orderedSetSimilarity;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * optional production metrics of the comparisons made through the static methods of {@link OrderedSetSimilarity}: the
+ * number of comparisons and a latency histogram per metric, histograms of the list lengths and intersection sizes, the
+ * number of early exits on an empty intersection, and a JFR {@link SlowComparisonEvent} for every comparison slower
+ * than a threshold. Every sample is taken in the same place, when a static method returns, so all counters and
+ * histograms describe the same comparisons. The prepared, sorted, indexed and batch engines are not instrumented.
+ * Metrics are off by default, where the cost is a volatile read per comparison. Turn them on with {@link #enable()}
+ * or the system property orderedSetSimilarity.metrics=true. Counters are LongAdders, so threads do not contend.
+ */
+public final class SimilarityMetrics {
+
+    public enum Metric {
+        ORDERED_SET_SIMILARITY,
+        JACCARD_SIMILARITY,
+        KENDALL_SIMILARITY,
+        DISPLACEMENT_SIMILARITY,
+        SIMILARITY_REPORT
+    }
+
+    // the start time returned while the metrics are disabled
+    private static final long DISABLED = Long.MIN_VALUE;
+
+    private static volatile boolean enabled = Boolean.getBoolean("orderedSetSimilarity.metrics");
+    private static volatile long slowThresholdNanos = 1_000_000L;
+
+    private static final Histogram[] latencies = new Histogram[Metric.values().length];
+    private static final Histogram listLengths = new Histogram();
+    private static final Histogram intersectionSizes = new Histogram();
+    private static final LongAdder earlyExits = new LongAdder();
+
+    static {
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new Histogram();
+        }
+    }
+
+    private SimilarityMetrics() {
+    }
+
+    public static void enable() {
+        enabled = true;
+    }
+
+    public static void disable() {
+        enabled = false;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * set the duration above which a comparison is reported as a {@link SlowComparisonEvent}.
+     * @param nanos
+     */
+    public static void setSlowThresholdNanos(long nanos) {
+        slowThresholdNanos = nanos;
+    }
+
+    public static long slowThresholdNanos() {
+        return slowThresholdNanos;
+    }
+
+    /**
+     * @return the latency histogram of the metric, in nanoseconds
+     */
+    public static Histogram latency(Metric metric) {
+        return latencies[metric.ordinal()];
+    }
+
+    /**
+     * @return the histogram of the lengths of both lists of every comparison
+     */
+    public static Histogram listLengths() {
+        return listLengths;
+    }
+
+    /**
+     * @return the histogram of the number of distinct common elements of every comparison
+     */
+    public static Histogram intersectionSizes() {
+        return intersectionSizes;
+    }
+
+    /**
+     * @return the number of orderedSetSimilarity comparisons that returned 0 without a displacement penalty because the
+     * lists had no common element
+     */
+    public static long earlyExits() {
+        return earlyExits.sum();
+    }
+
+    /**
+     * reset every counter and histogram, not atomically with respect to comparisons that are running.
+     */
+    public static void reset() {
+        for (Histogram latency : latencies) {
+            latency.reset();
+        }
+        listLengths.reset();
+        intersectionSizes.reset();
+        earlyExits.reset();
+    }
+
+    /**
+     * @return the start time of a comparison to pass to {@link #stop}
+     */
+    static long start() {
+        return enabled ? System.nanoTime() : DISABLED;
+    }
+
+    /**
+     * record a comparison whose lists are still indexed in the workspace.
+     */
+    static void stop(Metric metric, long start, int[] list1, int length2, SimilarityWorkspace workspace) {
+        if (start == DISABLED) {
+            return;
+        }
+        record(metric, System.nanoTime() - start, list1, length2, workspace);
+    }
+
+    /**
+     * record a comparison that returned before indexing its lists, so it is sampled like every other comparison. The
+     * lists are indexed here, only while the metrics are enabled and outside the measured time.
+     */
+    static void stopUnindexed(Metric metric, long start, int[] list1, int[] list2, SimilarityWorkspace workspace) {
+        if (start == DISABLED) {
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+        OrderedSetSimilarity.index(workspace.indexMap1, list1);
+        OrderedSetSimilarity.index(workspace.indexMap2, list2);
+        record(metric, elapsed, list1, list2.length, workspace);
+    }
+
+    private static void record(Metric metric, long elapsed, int[] list1, int length2, SimilarityWorkspace workspace) {
+        int length1 = list1.length;
+        latencies[metric.ordinal()].record(elapsed);
+        listLengths.record(length1);
+        listLengths.record(length2);
+        // one more pass over list1, only while the metrics are enabled and outside the measured time
+        int intersectionSize = OrderedSetSimilarity.intersectionSize(list1, workspace.indexMap1, workspace.indexMap2);
+        intersectionSizes.record(intersectionSize);
+        if (metric == Metric.ORDERED_SET_SIMILARITY && intersectionSize == 0 && length1 + length2 > 0) {
+            earlyExits.increment();
+        }
+        if (elapsed >= slowThresholdNanos) {
+            SlowComparisonEvent event = new SlowComparisonEvent();
+            if (event.isEnabled()) {
+                event.metric = metric.name();
+                event.length1 = length1;
+                event.length2 = length2;
+                event.elapsed = elapsed;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * histogram with power of two buckets: bucket 0 counts the value 0 and bucket b counts [2^(b-1), 2^b).
+     */
+    public static final class Histogram {
+
+        private final LongAdder[] buckets = new LongAdder[64];
+
+        Histogram() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void record(long value) {
+            buckets[64 - Long.numberOfLeadingZeros(Math.max(0L, value))].increment();
+        }
+
+        void reset() {
+            for (LongAdder bucket : buckets) {
+                bucket.reset();
+            }
+        }
+
+        /**
+         * @param bucket
+         * @return the number of values in [2^(bucket-1), 2^bucket), or of zeros for bucket 0
+         */
+        public long count(int bucket) {
+            return buckets[bucket].sum();
+        }
+
+        public long count() {
+            long count = 0;
+            for (LongAdder bucket : buckets) {
+                count += bucket.sum();
+            }
+            return count;
+        }
+
+        /**
+         * @param quantile in [0, 1]
+         * @return an upper bound of the quantile, the largest value of the bucket it falls into, 0 if nothing was recorded
+         */
+        public long quantileUpperBound(double quantile) {
+            long[] counts = new long[buckets.length];
+            long total = 0;
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = buckets[i].sum();
+                total += counts[i];
+            }
+            long rank = (long) Math.ceil(quantile * total);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank && seen > 0) {
+                    return i == 0 ? 0 : (i == 63 ? Long.MAX_VALUE : (1L << i) - 1);
+                }
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package orderedSetSimilarity;
+
+/**
+ * all metrics of one pair of lists, computed from a single shared indexing pass.
+ * @param orderedSetSimilarity
+ * @param jaccardSimilarity
+ * @param kendallSimilarity
+ * @param displacementSimilarity
+ * @param intersectionSize the number of distinct elements in both lists
+ * @param unionSize the number of distinct elements in either list
+ * @param totalPenalty the raw displacement penalty of orderedSetSimilarity: the index difference of every common
+ *                     element, summed over the elements of list1
+ */
+public record SimilarityReport(double orderedSetSimilarity, double jaccardSimilarity, double kendallSimilarity,
+                               double displacementSimilarity, int intersectionSize, int unionSize, long totalPenalty) {
+}
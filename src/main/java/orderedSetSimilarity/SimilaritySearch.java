@@ -0,0 +1,94 @@
+package orderedSetSimilarity;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * find the lists of a corpus that are most similar to a query according to orderedSetSimilarity.
+ */
+public class SimilaritySearch {
+
+    /**
+     * find the k corpus lists with the highest orderedSetSimilarity to the query.
+     * Only the k best scores are kept, and a candidate is skipped as soon as an upper bound of its score cannot beat
+     * the k-th best score so far. The orderedSetSimilarity is at most the Jaccard similarity, which is at most
+     * min(distinct1, distinct2) / max(distinct1, distinct2). A candidate shorter than the query is bounded by its
+     * length before it is indexed, and every other candidate is bounded by its distinct count right after indexing.
+     * @param query
+     * @param corpus
+     * @param k
+     * @return the same matches as scoring and sorting the whole corpus, best first, ties broken by the lower index
+     */
+    public static List<Match> topK(int[] query, List<int[]> corpus, int k) {
+        SimilarityWorkspace workspace = SimilarityWorkspace.local();
+        List<Match> matches = topK(new PreparedList(query), corpus, k, workspace);
+        workspace.trim();
+        return matches;
+    }
+
+    public static List<Match> topK(PreparedList query, List<int[]> corpus, int k, SimilarityWorkspace workspace) {
+        TopKCollector collector = new TopKCollector(k);
+        int queryDistinct = query.distinctCount();
+        for (int index = 0; index < corpus.size(); index++) {
+            int[] candidate = corpus.get(index);
+            if (queryDistinct > 0 && candidate.length < queryDistinct
+                    && !collector.accepts(jaccardUpperBound(queryDistinct, candidate.length), index)) {
+                continue;
+            }
+            IntIntMap candidateIndexMap = PreparedList.index(candidate, workspace);
+            if (!collector.accepts(jaccardUpperBound(queryDistinct, candidateIndexMap.size()), index)) {
+                continue;
+            }
+            collector.offer(index, query.orderedSetSimilarity(candidate.length, candidateIndexMap));
+        }
+        return collector.toList();
+    }
+
+    /**
+     * re-rank candidates found by an index with the exact orderedSetSimilarity.
+     * @param candidates the ids of the corpus lists to score
+     * @return the k candidates with the highest positive similarity, best first, ties broken by the lower id
+     */
+    static List<Match> topK(PreparedList query, List<int[]> corpus, int[] candidates, int k, SimilarityWorkspace workspace) {
+        TopKCollector collector = new TopKCollector(k);
+        for (int id : candidates) {
+            int[] candidate = corpus.get(id);
+            IntIntMap candidateIndexMap = PreparedList.index(candidate, workspace);
+            if (!collector.accepts(jaccardUpperBound(query.distinctCount(), candidateIndexMap.size()), id)) {
+                continue;
+            }
+            double score = query.orderedSetSimilarity(candidate.length, candidateIndexMap);
+            if (score > 0.0) {
+                collector.offer(id, score);
+            }
+        }
+        return collector.toList();
+    }
+
+    /**
+     * sort the first count ids and remove duplicates in place.
+     * @return the number of distinct ids
+     */
+    static int sortedUnique(int[] ids, int count) {
+        Arrays.sort(ids, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || ids[i] != ids[unique - 1]) {
+                ids[unique++] = ids[i];
+            }
+        }
+        return unique;
+    }
+
+    /**
+     * @return an upper bound of the Jaccard similarity, and therefore of the orderedSetSimilarity, of two lists with
+     * the given numbers of distinct elements
+     */
+    static double jaccardUpperBound(int distinct1, int distinct2) {
+        if (distinct1 == 0 && distinct2 == 0) {
+            // empty set always equals itself
+            return 1.0;
+        }
+        return (double) Math.min(distinct1, distinct2) / Math.max(distinct1, distinct2);
+    }
+}
@@ -0,0 +1,353 @@
+package orderedSetSimilarity;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * embedded HTTP server on the loopback interface that scores lists with orderedSetSimilarity, so several services
+ * can share one warm engine. Lists are sent as plain text, one list per line with the elements separated by spaces
+ * or commas, and scores come back one per line.
+ * <ul>
+ *     <li>POST /similarity: a query line and a candidate line, answers the score. Concurrent requests with the same
+ *     query are micro-batched: the first request of a batch waits for the batch window, then indexes the query once
+ *     and scores the candidates of every request that joined in the meantime.</li>
+ *     <li>POST /one-vs-many: a query line followed by any number of candidate lines, answers one score per candidate.
+ *     Candidates are read and scored as they arrive and the scores are streamed back in a chunked response.</li>
+ * </ul>
+ * Every request runs on its own virtual thread when the JDK has them (21+), and on a cached thread pool otherwise.
+ * The JDK HttpServer does not set TCP_NODELAY by default, so Nagle's algorithm and delayed acks can add tens of
+ * milliseconds to every small response. Latency sensitive deployments should start the JVM with
+ * -Dsun.net.httpserver.nodelay=true; the server leaves that JVM-wide setting to the caller.
+ * Usage: SimilarityServer [port]
+ */
+public final class SimilarityServer implements AutoCloseable {
+
+    public static final long DEFAULT_BATCH_WINDOW_NANOS = 200_000L;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+
+    // flush the streamed response after this many scores
+    private static final int FLUSH_INTERVAL = 64;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long batchWindowNanos;
+    private final int maxBatchSize;
+    private final ConcurrentHashMap<QueryKey, Batch> openBatches = new ConcurrentHashMap<>();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedRequests = new LongAdder();
+
+    private SimilarityServer(HttpServer server, ExecutorService executor, long batchWindowNanos, int maxBatchSize) {
+        this.server = server;
+        this.executor = executor;
+        this.batchWindowNanos = batchWindowNanos;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public static SimilarityServer start(int port) throws IOException {
+        return start(port, DEFAULT_BATCH_WINDOW_NANOS, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * @param port the port on the loopback interface, 0 for any free port
+     * @param batchWindowNanos how long the first request of a batch waits for others with the same query
+     * @param maxBatchSize the number of requests after which a batch is closed early
+     * @return the running server
+     * @throws IOException if the port cannot be bound
+     */
+    public static SimilarityServer start(int port, long batchWindowNanos, int maxBatchSize) throws IOException {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        }
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        ExecutorService executor = requestExecutor();
+        SimilarityServer similarityServer = new SimilarityServer(server, executor, batchWindowNanos, maxBatchSize);
+        server.createContext("/similarity", similarityServer::similarity);
+        server.createContext("/one-vs-many", similarityServer::oneVsMany);
+        server.setExecutor(executor);
+        server.start();
+        return similarityServer;
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * @return the number of batches scored by /similarity
+     */
+    public long batches() {
+        return batches.sum();
+    }
+
+    /**
+     * @return the number of /similarity requests scored in those batches
+     */
+    public long batchedRequests() {
+        return batchedRequests.sum();
+    }
+
+    /**
+     * stop accepting requests and wait up to a second for running ones.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        start(args.length > 0 ? Integer.parseInt(args[0]) : 8080);
+    }
+
+    /**
+     * @return an executor that starts a virtual thread per task when the runtime supports them, looked up
+     * reflectively so the library still runs on Java 17
+     */
+    static ExecutorService requestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "similarity-server");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * score the candidate against the query in the open batch of the query, or in a new batch led by this request.
+     */
+    double score(int[] query, int[] candidate) {
+        QueryKey key = new QueryKey(query);
+        while (true) {
+            Batch batch = openBatches.computeIfAbsent(key, k -> new Batch(query));
+            Request request = batch.add(candidate, maxBatchSize);
+            if (request == null) {
+                // the batch was closed between the lookup and the add
+                openBatches.remove(key, batch);
+                continue;
+            }
+            if (request.leader) {
+                batch.awaitFull(batchWindowNanos);
+                openBatches.remove(key, batch);
+                score(batch.close());
+            } else if (batch.isFull()) {
+                openBatches.remove(key, batch);
+            }
+            return request.score.join();
+        }
+    }
+
+    private void score(List<Request> requests) {
+        batches.increment();
+        batchedRequests.add(requests.size());
+        try {
+            PreparedList query = new PreparedList(requests.get(0).query);
+            SimilarityWorkspace workspace = new SimilarityWorkspace();
+            for (Request request : requests) {
+                request.score.complete(query.orderedSetSimilarity(request.candidate, workspace));
+            }
+        } catch (RuntimeException e) {
+            requests.forEach(request -> request.score.completeExceptionally(e));
+        } catch (Error e) {
+            // release the followers blocked on their scores before the error unwinds the leader
+            requests.forEach(request -> request.score.completeExceptionally(e));
+            throw e;
+        }
+    }
+
+    private void similarity(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, "POST a query line and a candidate line\n");
+                return;
+            }
+            int[] query;
+            int[] candidate;
+            try (BufferedReader reader = reader(exchange)) {
+                String queryLine = reader.readLine();
+                String candidateLine = reader.readLine();
+                if (queryLine == null || candidateLine == null) {
+                    respond(exchange, 400, "expected a query line and a candidate line\n");
+                    return;
+                }
+                query = ListFormat.parse(queryLine);
+                candidate = ListFormat.parse(candidateLine);
+            } catch (NumberFormatException e) {
+                respond(exchange, 400, "not a list of ints: " + e.getMessage() + "\n");
+                return;
+            }
+            respond(exchange, 200, score(query, candidate) + "\n");
+        }
+    }
+
+    private void oneVsMany(HttpExchange exchange) throws IOException {
+        try (exchange; BufferedReader reader = reader(exchange)) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, "POST a query line followed by candidate lines\n");
+                return;
+            }
+            PreparedList query;
+            try {
+                String queryLine = reader.readLine();
+                if (queryLine == null) {
+                    respond(exchange, 400, "expected a query line\n");
+                    return;
+                }
+                query = new PreparedList(ListFormat.parse(queryLine));
+            } catch (NumberFormatException e) {
+                respond(exchange, 400, "not a list of ints: " + e.getMessage() + "\n");
+                return;
+            }
+
+            // the status is sent before the candidates are read, a malformed candidate ends the stream with an error line
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(200, 0);
+            Writer writer = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8));
+            SimilarityWorkspace workspace = new SimilarityWorkspace();
+            int count = 0;
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                try {
+                    writer.write(Double.toString(query.orderedSetSimilarity(ListFormat.parse(line), workspace)));
+                } catch (NumberFormatException e) {
+                    writer.write("error: not a list of ints: " + e.getMessage() + "\n");
+                    break;
+                }
+                writer.write('\n');
+                if (++count % FLUSH_INTERVAL == 0) {
+                    writer.flush();
+                }
+            }
+            writer.flush();
+        }
+    }
+
+    private static BufferedReader reader(HttpExchange exchange) {
+        return new BufferedReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8));
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * a query list as a map key, compared by content.
+     */
+    private static final class QueryKey {
+        private final int[] query;
+        private final int hash;
+
+        QueryKey(int[] query) {
+            this.query = query;
+            this.hash = Long.hashCode(FingerprintedList.fingerprint(query));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof QueryKey other && hash == other.hash && Arrays.equals(query, other.query);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Request {
+        final int[] query;
+        final int[] candidate;
+        final boolean leader;
+        final CompletableFuture<Double> score = new CompletableFuture<>();
+
+        Request(int[] query, int[] candidate, boolean leader) {
+            this.query = query;
+            this.candidate = candidate;
+            this.leader = leader;
+        }
+    }
+
+    /**
+     * the requests that share a query and are scored together. The thread of the first request leads the batch and
+     * waits on the batch's own latch, so a signal meant for one batch can never cut the window of a later one short.
+     */
+    private static final class Batch {
+        final int[] query;
+        private final List<Request> requests = new ArrayList<>();
+        private final CountDownLatch filled = new CountDownLatch(1);
+        private boolean closed;
+        private volatile boolean full;
+
+        Batch(int[] query) {
+            this.query = query;
+        }
+
+        /**
+         * @return the request added to the batch, null if the batch is closed
+         */
+        synchronized Request add(int[] candidate, int maxBatchSize) {
+            if (closed || full) {
+                return null;
+            }
+            Request request = new Request(query, candidate, requests.isEmpty());
+            requests.add(request);
+            if (requests.size() >= maxBatchSize) {
+                full = true;
+                filled.countDown();
+            }
+            return request;
+        }
+
+        boolean isFull() {
+            return full;
+        }
+
+        /**
+         * wait until the batch is full or the window has passed.
+         */
+        void awaitFull(long windowNanos) {
+            try {
+                filled.await(windowNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                // score what has joined so far, the caller sees the interrupt
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        synchronized List<Request> close() {
+            closed = true;
+            return requests;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package orderedSetSimilarity;
+
+/**
+ * a finished block of the all-pairs similarity matrix: rows rowStart (inclusive) to rowEnd (exclusive) against columns
+ * columnStart to columnEnd. Only the upper triangle is computed, so cells with column <= row hold NaN.
+ * @param rowStart
+ * @param rowEnd
+ * @param columnStart
+ * @param columnEnd
+ * @param scores the cells in row major order
+ */
+public record SimilarityTile(int rowStart, int rowEnd, int columnStart, int columnEnd, double[] scores) {
+
+    /**
+     * @return orderedSetSimilarity(lists[row], lists[column]), or NaN if column <= row
+     */
+    public double score(int row, int column) {
+        return scores[(row - rowStart) * (columnEnd - columnStart) + column - columnStart];
+    }
+}
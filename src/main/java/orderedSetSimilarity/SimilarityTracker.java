@@ -0,0 +1,203 @@
+package orderedSetSimilarity;
+
+import java.util.Arrays;
+
+/**
+ * keeps the orderedSetSimilarity between a mutable ranked list and a fixed reference list up to date while the ranked
+ * list is edited. The tracker holds the intersection size, the union size and the total displacement penalty of the
+ * pair, and every insert, remove or move only visits the elements whose index shifts, instead of recomputing the
+ * whole similarity. {@link #similarity()} always equals
+ * {@code OrderedSetSimilarity.orderedSetSimilarity(toArray(), reference)}.
+ * Both lists must be ordered sets, without repeated elements. A tracker is not thread safe.
+ */
+public final class SimilarityTracker {
+
+    private final int[] reference;
+    private final IntIntMap referenceIndexMap;
+
+    private int[] list;
+    private int size;
+    // element -> index in list, -1 for an element that has been removed
+    private final IntIntMap indexMap;
+
+    private int intersectionSize;
+    private long totalPenalty;
+
+    public SimilarityTracker(int[] list, int[] reference) {
+        this.reference = reference.clone();
+        this.referenceIndexMap = OrderedSetSimilarity.index(new IntIntMap(reference.length), this.reference);
+        if (referenceIndexMap.size() != reference.length) {
+            throw new IllegalArgumentException("the reference list contains a repeated element");
+        }
+
+        this.list = Arrays.copyOf(list, Math.max(16, list.length));
+        this.size = list.length;
+        this.indexMap = OrderedSetSimilarity.index(new IntIntMap(list.length), list);
+        if (indexMap.size() != list.length) {
+            throw new IllegalArgumentException("the list contains a repeated element");
+        }
+
+        for (int i = 0; i < size; i++) {
+            int referenceIndex = referenceIndexMap.get(list[i], -1);
+            if (referenceIndex >= 0) {
+                intersectionSize++;
+                totalPenalty += Math.abs(i - referenceIndex);
+            }
+        }
+    }
+
+    /**
+     * insert the element at the index, shifting the elements from the index onwards one place down the list.
+     * @param index
+     * @param element must not be in the list yet
+     */
+    public void insert(int index, int element) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("index " + index + " out of bounds for size " + size);
+        }
+        if (indexMap.get(element, -1) >= 0) {
+            throw new IllegalArgumentException("the list already contains " + element);
+        }
+        if (size == list.length) {
+            list = Arrays.copyOf(list, list.length * 2);
+        }
+        shift(index, size, 1);
+        size++;
+        place(index, element);
+        if (referenceIndexMap.get(element, -1) >= 0) {
+            intersectionSize++;
+        }
+    }
+
+    /**
+     * remove the element at the index, shifting the elements after it one place up the list.
+     * @param index
+     * @return the removed element
+     */
+    public int remove(int index) {
+        checkIndex(index);
+        int element = list[index];
+        int referenceIndex = referenceIndexMap.get(element, -1);
+        if (referenceIndex >= 0) {
+            intersectionSize--;
+            totalPenalty -= Math.abs(index - referenceIndex);
+        }
+        indexMap.put(element, -1);
+        shift(index + 1, size, -1);
+        size--;
+        compactIndexMap();
+        return element;
+    }
+
+    /**
+     * move the element at index from to index to, shifting the elements in between by one place.
+     * @param from
+     * @param to
+     */
+    public void move(int from, int to) {
+        checkIndex(from);
+        checkIndex(to);
+        int element = list[from];
+        int referenceIndex = referenceIndexMap.get(element, -1);
+        if (referenceIndex >= 0) {
+            totalPenalty -= Math.abs(from - referenceIndex);
+        }
+        if (from < to) {
+            shift(from + 1, to + 1, -1);
+        } else {
+            shift(to, from, 1);
+        }
+        place(to, element);
+    }
+
+    /**
+     * @return orderedSetSimilarity(list, reference) for the current state of the list
+     */
+    public double similarity() {
+        if (size == 0 && reference.length == 0) {
+            // empty set always equals itself
+            return 1.0;
+        }
+
+        double jaccardSimilarity = (double) intersectionSize / unionSize();
+        if (jaccardSimilarity == 0.0) {
+            return 0.0;
+        }
+
+        int maxListSize = Math.max(size, reference.length);
+        if (maxListSize <= 1) {
+            // either the lists have no common element or are equal
+            return jaccardSimilarity;
+        }
+        double maxPenalty = maxListSize * intersectionSize;
+        return jaccardSimilarity * (1.0 - (totalPenalty / maxPenalty));
+    }
+
+    public int intersectionSize() {
+        return intersectionSize;
+    }
+
+    public int unionSize() {
+        return size + reference.length - intersectionSize;
+    }
+
+    /**
+     * @return the sum of the index differences of the common elements
+     */
+    public long totalPenalty() {
+        return totalPenalty;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return a copy of the current list
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(list, size);
+    }
+
+    /**
+     * move the elements from (inclusive) to to (exclusive) by distance places and update their penalty.
+     */
+    private void shift(int from, int to, int distance) {
+        System.arraycopy(list, from, list, from + distance, to - from);
+        for (int index = from + distance; index < to + distance; index++) {
+            int element = list[index];
+            indexMap.put(element, index);
+            int referenceIndex = referenceIndexMap.get(element, -1);
+            if (referenceIndex >= 0) {
+                totalPenalty += Math.abs(index - referenceIndex) - Math.abs(index - distance - referenceIndex);
+            }
+        }
+    }
+
+    private void place(int index, int element) {
+        list[index] = element;
+        indexMap.put(element, index);
+        int referenceIndex = referenceIndexMap.get(element, -1);
+        if (referenceIndex >= 0) {
+            totalPenalty += Math.abs(index - referenceIndex);
+        }
+    }
+
+    /**
+     * removed elements stay in the index map with index -1, rebuild it once they outnumber the live elements.
+     */
+    private void compactIndexMap() {
+        if (indexMap.size() > 2 * size + 16) {
+            indexMap.clear(size);
+            for (int i = 0; i < size; i++) {
+                indexMap.put(list[i], i);
+            }
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + " out of bounds for size " + size);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package orderedSetSimilarity;
+
+/**
+ * reusable scratch space for the primitive similarity engine.
+ * A workspace holds the element to index tables of both lists, so passing the same workspace to consecutive comparisons
+ * means a hot loop allocates nothing once the tables have grown to the largest list seen.
+ * A workspace is not thread safe: use one per thread.
+ */
+public final class SimilarityWorkspace {
+
+    private static final ThreadLocal<SimilarityWorkspace> LOCAL = ThreadLocal.withInitial(SimilarityWorkspace::new);
+    // one dense-id workspace per thread, shared by every dictionary
+    private static final ThreadLocal<SimilarityWorkspace> LOCAL_DENSE = new ThreadLocal<>();
+
+    // tables and scratch arrays larger than this many slots are dropped by trim(), which bounds what a thread-local
+    // workspace keeps alive at roughly 400 KB, enough for lists of 16K elements
+    static final int RETAINED_CAPACITY = 1 << 15;
+
+    final IntIntMap indexMap1;
+    final IntIntMap indexMap2;
+    private final int idUniverse;
+    private int[] scratch = new int[0];
+    private int[] buffer = new int[0];
+    // the sums of a SortedSetList intersection
+    final long[] intersection = new long[3];
+
+    public SimilarityWorkspace() {
+        indexMap1 = new IntIntMap();
+        indexMap2 = new IntIntMap();
+        idUniverse = 0;
+    }
+
+    /**
+     * @param expectedListSize the list size the tables are sized for up front
+     */
+    public SimilarityWorkspace(int expectedListSize) {
+        indexMap1 = new IntIntMap(expectedListSize);
+        indexMap2 = new IntIntMap(expectedListSize);
+        idUniverse = 0;
+    }
+
+    /**
+     * a workspace for element ids that are mostly dense catalog indexes in [0, idUniverse).
+     * Positions of those ids live in direct-address tables, so indexing a list never hashes them and the tables never
+     * need clearing thanks to generation stamps. Ids outside the universe automatically fall back to hashing.
+     * The tables take 16 * idUniverse bytes.
+     * @param expectedListSize the list size the hashed tables are sized for up front
+     * @param idUniverse the number of dense ids, at most 2^29
+     */
+    public SimilarityWorkspace(int expectedListSize, int idUniverse) {
+        indexMap1 = new IntIntMap(expectedListSize, idUniverse);
+        indexMap2 = new IntIntMap(expectedListSize, idUniverse);
+        this.idUniverse = idUniverse;
+    }
+
+    /**
+     * @return the number of dense ids with direct-address positions, 0 if every id is hashed
+     */
+    public int idUniverse() {
+        return idUniverse;
+    }
+
+    /**
+     * @param minLength
+     * @return a scratch array of at least minLength elements, its content is undefined
+     */
+    int[] scratch(int minLength) {
+        if (scratch.length < minLength) {
+            scratch = new int[Math.max(minLength, scratch.length + (scratch.length >> 1))];
+        }
+        return scratch;
+    }
+
+    /**
+     * @param minLength
+     * @return a second scratch array of at least minLength elements, its content is undefined
+     */
+    int[] buffer(int minLength) {
+        if (buffer.length < minLength) {
+            buffer = new int[Math.max(minLength, buffer.length + (buffer.length >> 1))];
+        }
+        return buffer;
+    }
+
+    /**
+     * release the hashed tables and scratch arrays that have grown beyond RETAINED_CAPACITY, so one comparison of huge
+     * lists does not pin their tables to the thread for good. The direct-address tables are sized by the id universe
+     * and kept. Every method that borrows the thread-local workspace trims it before returning; a caller that passes
+     * its own workspace decides itself whether to keep the large tables.
+     */
+    void trim() {
+        indexMap1.trim(RETAINED_CAPACITY);
+        indexMap2.trim(RETAINED_CAPACITY);
+        if (scratch.length > RETAINED_CAPACITY) {
+            scratch = new int[0];
+        }
+        if (buffer.length > RETAINED_CAPACITY) {
+            buffer = new int[0];
+        }
+    }
+
+    /**
+     * @return the workspace owned by the calling thread, callers call trim() when they are done with it
+     */
+    static SimilarityWorkspace local() {
+        return LOCAL.get();
+    }
+
+    /**
+     * @param idUniverse the number of dense ids the caller needs direct-address positions for
+     * @return the dense-id workspace owned by the calling thread, replaced by a larger one once it covers less than half
+     * of idUniverse; callers call trim() when they are done with it
+     */
+    static SimilarityWorkspace localDense(int idUniverse) {
+        SimilarityWorkspace workspace = LOCAL_DENSE.get();
+        if (workspace == null || workspace.idUniverse() < idUniverse / 2) {
+            workspace = new SimilarityWorkspace(16, idUniverse);
+            LOCAL_DENSE.set(workspace);
+        }
+        return workspace;
+    }
+}
@@ -0,0 +1,34 @@
+package orderedSetSimilarity;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event of a comparison that took longer than {@link SimilarityMetrics#slowThresholdNanos()}. Only emitted while
+ * the metrics are enabled and a recording has the event enabled.
+ */
+@Name("orderedSetSimilarity.SlowComparison")
+@Label("Slow Similarity Comparison")
+@Category("Ordered Set Similarity")
+@Description("A similarity comparison that exceeded the slow threshold")
+@StackTrace(false)
+final class SlowComparisonEvent extends Event {
+
+    @Label("Metric")
+    String metric;
+
+    @Label("List 1 Length")
+    int length1;
+
+    @Label("List 2 Length")
+    int length2;
+
+    @Label("Elapsed")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsed;
+}
@@ -0,0 +1,226 @@
+package orderedSetSimilarity;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * a list stored as its distinct elements in ascending order next to their last index in the original list.
+ * The intersection of two sorted lists is a merge, or a galloping search when one is much longer than the other, with
+ * no hashing at all. The matched positions feed straight into the displacement penalty, which suits long lists with
+ * high overlap where hashing dominates. Scores are the same as the static methods of {@link OrderedSetSimilarity} with
+ * this list as list1.
+ * Comparing allocates nothing, the intersection is summed up in the workspace. Building a sorted list sorts it once,
+ * so it pays off for lists that are compared many times; the sortedConstructionAndCompare benchmark measures the cost
+ * of converting both lists for every comparison.
+ * A sorted list is immutable and can be shared between threads; the workspaces passed to it cannot.
+ */
+public final class SortedSetList {
+
+    // use galloping instead of a merge once one list has this many times more distinct elements than the other
+    private static final int GALLOP_RATIO = 16;
+    // the sums of an intersection: common elements, sum of |position1 - position2| over them, and the same sum with
+    // every element weighted by its number of occurrences in this list
+    private static final int SIZE = 0;
+    private static final int PENALTY = 1;
+    private static final int OCCURRENCE_PENALTY = 2;
+
+    private final int length;
+    private final int[] elements;
+    private final int[] positions;
+    // the number of times every element occurs in the list, null if no element is repeated
+    private final int[] counts;
+
+    public SortedSetList(int[] list) {
+        this.length = list.length;
+
+        // sort (element, index) pairs packed into longs, so the last index of an element comes last
+        long[] pairs = new long[list.length];
+        for (int i = 0; i < list.length; i++) {
+            pairs[i] = (long) list[i] << 32 | i;
+        }
+        Arrays.sort(pairs);
+
+        int distinct = 0;
+        for (int i = 0; i < pairs.length; i++) {
+            if (i + 1 == pairs.length || (int) (pairs[i] >> 32) != (int) (pairs[i + 1] >> 32)) {
+                distinct++;
+            }
+        }
+        elements = new int[distinct];
+        positions = new int[distinct];
+        int[] counts = distinct < list.length ? new int[distinct] : null;
+        int next = 0;
+        int count = 0;
+        for (int i = 0; i < pairs.length; i++) {
+            count++;
+            if (i + 1 == pairs.length || (int) (pairs[i] >> 32) != (int) (pairs[i + 1] >> 32)) {
+                elements[next] = (int) (pairs[i] >> 32);
+                positions[next] = (int) pairs[i];
+                if (counts != null) {
+                    counts[next] = count;
+                }
+                next++;
+                count = 0;
+            }
+        }
+        this.counts = counts;
+    }
+
+    public SortedSetList(List<Integer> list) {
+        this(OrderedSetSimilarity.toArray(list));
+    }
+
+    /**
+     * @return the number of elements of the original list, including duplicates
+     */
+    public int size() {
+        return length;
+    }
+
+    public int distinctCount() {
+        return elements.length;
+    }
+
+    public double orderedSetSimilarity(SortedSetList other) {
+        SimilarityWorkspace workspace = SimilarityWorkspace.local();
+        double similarity = orderedSetSimilarity(other, workspace);
+        workspace.trim();
+        return similarity;
+    }
+
+    public double orderedSetSimilarity(SortedSetList other, SimilarityWorkspace workspace) {
+        if (length == 0 && other.length == 0) {
+            // empty set always equals itself
+            return 1.0;
+        }
+
+        long[] intersection = intersect(other, workspace);
+        int intersectionSize = (int) intersection[SIZE];
+        int unionSize = elements.length + other.elements.length - intersectionSize;
+        double jaccardSimilarity = (double) intersectionSize / unionSize;
+        if (jaccardSimilarity == 0.0) {
+            return 0.0;
+        }
+
+        int maxListSize = Math.max(length, other.length);
+        if (maxListSize <= 1) {
+            // either the lists have no common element or are equal
+            return jaccardSimilarity;
+        }
+        double maxPenalty = maxListSize * intersectionSize;
+        return jaccardSimilarity * (1.0 - (intersection[OCCURRENCE_PENALTY] / maxPenalty));
+    }
+
+    public double jaccardSimilarity(SortedSetList other) {
+        SimilarityWorkspace workspace = SimilarityWorkspace.local();
+        double similarity = jaccardSimilarity(other, workspace);
+        workspace.trim();
+        return similarity;
+    }
+
+    public double jaccardSimilarity(SortedSetList other, SimilarityWorkspace workspace) {
+        if (length == 0 && other.length == 0) {
+            // empty set always equals itself
+            return 1.0;
+        }
+        int intersectionSize = (int) intersect(other, workspace)[SIZE];
+        return (double) intersectionSize / (elements.length + other.elements.length - intersectionSize);
+    }
+
+    public double displacementSimilarity(SortedSetList other) {
+        SimilarityWorkspace workspace = SimilarityWorkspace.local();
+        double similarity = displacementSimilarity(other, workspace);
+        workspace.trim();
+        return similarity;
+    }
+
+    public double displacementSimilarity(SortedSetList other, SimilarityWorkspace workspace) {
+        int maxListSize = Math.max(length, other.length);
+        if (maxListSize <= 1) {
+            // either the lists have no common element or are equal
+            return 1.0;
+        }
+        long[] intersection = intersect(other, workspace);
+        if (intersection[SIZE] == 0) {
+            return 1.0;
+        }
+        double maxPenalty = maxListSize * intersection[SIZE];
+        return 1.0 - (intersection[PENALTY] / maxPenalty);
+    }
+
+    /**
+     * add a common element to the intersection sums.
+     */
+    private void match(long[] intersection, int index1, int position2) {
+        int displacement = Math.abs(positions[index1] - position2);
+        intersection[SIZE]++;
+        intersection[PENALTY] += displacement;
+        intersection[OCCURRENCE_PENALTY] += counts == null ? displacement : (long) counts[index1] * displacement;
+    }
+
+    /**
+     * @return the intersection sums of the workspace, indexed by SIZE, PENALTY and OCCURRENCE_PENALTY
+     */
+    private long[] intersect(SortedSetList other, SimilarityWorkspace workspace) {
+        long[] intersection = workspace.intersection;
+        Arrays.fill(intersection, 0L);
+        int[] elements1 = elements;
+        int[] elements2 = other.elements;
+        if (elements1.length * (long) GALLOP_RATIO < elements2.length) {
+            // look up every element of this list in the much longer other list
+            int from = 0;
+            for (int i = 0; i < elements1.length && from < elements2.length; i++) {
+                from = gallop(elements2, from, elements1[i]);
+                if (from < elements2.length && elements2[from] == elements1[i]) {
+                    match(intersection, i, other.positions[from]);
+                }
+            }
+        } else if (elements2.length * (long) GALLOP_RATIO < elements1.length) {
+            int from = 0;
+            for (int j = 0; j < elements2.length && from < elements1.length; j++) {
+                from = gallop(elements1, from, elements2[j]);
+                if (from < elements1.length && elements1[from] == elements2[j]) {
+                    match(intersection, from, other.positions[j]);
+                }
+            }
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < elements1.length && j < elements2.length) {
+                int a = elements1[i];
+                int b = elements2[j];
+                if (a == b) {
+                    match(intersection, i, other.positions[j]);
+                }
+                // advance without a data-dependent branch on the comparison
+                i += a <= b ? 1 : 0;
+                j += b <= a ? 1 : 0;
+            }
+        }
+        return intersection;
+    }
+
+    /**
+     * @return the first index at or after from holding a value of at least key, found by doubling steps followed by a
+     * binary search
+     */
+    private static int gallop(int[] values, int from, int key) {
+        int step = 1;
+        int high = from;
+        while (high < values.length && values[high] < key) {
+            from = high + 1;
+            high += step;
+            step <<= 1;
+        }
+        high = Math.min(high, values.length);
+        while (from < high) {
+            int middle = (from + high) >>> 1;
+            if (values[middle] < key) {
+                from = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return from;
+    }
+}
@@ -0,0 +1,90 @@
+package orderedSetSimilarity;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * keeps the k best (index, score) pairs seen so far in a bounded min-heap of primitives.
+ * Higher scores are better and equal scores are broken by the lower index, which is the order a stable sort of the
+ * whole corpus by descending score would produce.
+ */
+final class TopKCollector {
+
+    private final int k;
+    private final int[] indexes;
+    private final double[] scores;
+    private int size;
+
+    TopKCollector(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative: " + k);
+        }
+        this.k = k;
+        this.indexes = new int[k];
+        this.scores = new double[k];
+    }
+
+    /**
+     * @param bound an upper bound of the score of the list at index
+     * @param index
+     * @return false if a list at index with a score of at most bound can never be collected
+     */
+    boolean accepts(double bound, int index) {
+        return size < k && k > 0 || size > 0 && better(bound, index, scores[0], indexes[0]);
+    }
+
+    void offer(int index, double score) {
+        if (size < k) {
+            // sift the new entry up from the last leaf
+            int child = size++;
+            while (child > 0) {
+                int parent = (child - 1) >>> 1;
+                if (!better(scores[parent], indexes[parent], score, index)) {
+                    break;
+                }
+                indexes[child] = indexes[parent];
+                scores[child] = scores[parent];
+                child = parent;
+            }
+            indexes[child] = index;
+            scores[child] = score;
+        } else if (k > 0 && better(score, index, scores[0], indexes[0])) {
+            // replace the worst entry and sift it down
+            int parent = 0;
+            while (true) {
+                int child = 2 * parent + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && better(scores[child], indexes[child], scores[child + 1], indexes[child + 1])) {
+                    child++;
+                }
+                if (!better(score, index, scores[child], indexes[child])) {
+                    break;
+                }
+                indexes[parent] = indexes[child];
+                scores[parent] = scores[child];
+                parent = child;
+            }
+            indexes[parent] = index;
+            scores[parent] = score;
+        }
+    }
+
+    /**
+     * @return the collected matches, best first
+     */
+    List<Match> toList() {
+        List<Match> matches = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            matches.add(new Match(indexes[i], scores[i]));
+        }
+        matches.sort(Comparator.comparingDouble(Match::score).reversed().thenComparingInt(Match::index));
+        return matches;
+    }
+
+    private static boolean better(double score, int index, double otherScore, int otherIndex) {
+        return score > otherScore || score == otherScore && index < otherIndex;
+    }
+}
@@ -0,0 +1,53 @@
+package orderedSetSimilarity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AllPairsSimilarityTest {
+
+    @Test
+    public void everyPairOfTheUpperTriangleOnce() {
+        List<int[]> lists = SimilaritySearchTest.randomCorpus(new Random(23), 301, 20, 40);
+        Queue<SimilarityTile> tiles = new ConcurrentLinkedQueue<>();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            AllPairsSimilarity.compute(lists, 32, pool, tiles::add);
+        } finally {
+            pool.shutdown();
+        }
+
+        int[][] seen = new int[lists.size()][lists.size()];
+        for (SimilarityTile tile : tiles) {
+            for (int row = tile.rowStart(); row < tile.rowEnd(); row++) {
+                for (int column = tile.columnStart(); column < tile.columnEnd(); column++) {
+                    if (column <= row) {
+                        assertTrue(Double.isNaN(tile.score(row, column)));
+                        continue;
+                    }
+                    assertEquals(OrderedSetSimilarity.orderedSetSimilarity(lists.get(row), lists.get(column)), tile.score(row, column), 0.0);
+                    seen[row][column]++;
+                }
+            }
+        }
+        for (int row = 0; row < lists.size(); row++) {
+            for (int column = 0; column < lists.size(); column++) {
+                assertEquals(column > row ? 1 : 0, seen[row][column]);
+            }
+        }
+    }
+
+    @Test
+    public void emptyInput() {
+        Queue<SimilarityTile> tiles = new ConcurrentLinkedQueue<>();
+        AllPairsSimilarity.compute(List.of(), tiles::add);
+        assertTrue(tiles.isEmpty());
+    }
+}
@@ -0,0 +1,99 @@
+package orderedSetSimilarity;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkScorerTest {
+
+    private static String score(BulkScorer scorer, byte[] input, BulkScorer.Format format) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        scorer.score(new ByteArrayInputStream(input), format, output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void textInOrder() throws IOException {
+        List<int[]> lists = SimilaritySearchTest.randomCorpus(new Random(83), 2001, 30, 50);
+        StringBuilder input = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i + 1 < lists.size(); i++) {
+            input.append(ListFormat.format(lists.get(i))).append('\t').append(ListFormat.format(lists.get(i + 1))).append('\n');
+            expected.append(OrderedSetSimilarity.orderedSetSimilarity(lists.get(i), lists.get(i + 1))).append('\n');
+        }
+        // small batches and several workers, so batches finish out of order
+        BulkScorer scorer = new BulkScorer(OrderedSetSimilarity::orderedSetSimilarity, 4, 7, true);
+        assertEquals(expected.toString(), score(scorer, input.toString().getBytes(StandardCharsets.UTF_8), BulkScorer.Format.TEXT));
+    }
+
+    @Test
+    public void binaryUnordered() throws IOException {
+        List<int[]> lists = SimilaritySearchTest.randomCorpus(new Random(89), 1001, 30, 50);
+        ByteArrayOutputStream input = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(input);
+        for (int i = 0; i + 1 < lists.size(); i++) {
+            BulkScorer.writeBinary(out, lists.get(i), lists.get(i + 1));
+        }
+
+        BulkScorer scorer = new BulkScorer(OrderedSetSimilarity::kendallSimilarity, 3, 16, false);
+        String[] lines = score(scorer, input.toByteArray(), BulkScorer.Format.BINARY).split("\n");
+        assertEquals(lists.size() - 1, lines.length);
+        double[] scores = new double[lines.length];
+        Arrays.fill(scores, Double.NaN);
+        for (String line : lines) {
+            String[] fields = line.split("\t");
+            scores[Integer.parseInt(fields[0])] = Double.parseDouble(fields[1]);
+        }
+        for (int i = 0; i < scores.length; i++) {
+            assertEquals(OrderedSetSimilarity.kendallSimilarity(lists.get(i), lists.get(i + 1)), scores[i], 0.0);
+        }
+    }
+
+    @Test
+    public void emptyListsAndBlankLines() throws IOException {
+        String input = "4 7 3 8 9 2\t4,3,7,2,9\n\n\t\n";
+        assertEquals("0.7222222222222223\n1.0\n", score(new BulkScorer(2), input.getBytes(StandardCharsets.UTF_8), BulkScorer.Format.TEXT));
+        assertEquals("", score(new BulkScorer(2), new byte[0], BulkScorer.Format.BINARY));
+    }
+
+    @Test
+    public void malformedInput() throws IOException {
+        BulkScorer scorer = new BulkScorer(2);
+        IOException missingTab = assertThrows(IOException.class, () -> score(scorer, "1 2\t3\n1 2 3\n".getBytes(StandardCharsets.UTF_8), BulkScorer.Format.TEXT));
+        assertTrue(missingTab.getMessage().startsWith("line 2"), missingTab.getMessage());
+        assertThrows(IOException.class, () -> score(scorer, "1 x\t3\n".getBytes(StandardCharsets.UTF_8), BulkScorer.Format.TEXT));
+
+        ByteArrayOutputStream input = new ByteArrayOutputStream();
+        BulkScorer.writeBinary(new DataOutputStream(input), new int[]{1, 2, 3}, new int[]{3, 2});
+        byte[] truncated = Arrays.copyOf(input.toByteArray(), input.size() - 2);
+        assertThrows(IOException.class, () -> score(scorer, truncated, BulkScorer.Format.BINARY));
+
+        // a corrupt length is rejected instead of allocating the list
+        ByteArrayOutputStream oversized = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(oversized);
+        out.writeInt(Integer.reverseBytes(Integer.MAX_VALUE));
+        out.writeInt(0);
+        IOException tooLong = assertThrows(IOException.class, () -> score(scorer, oversized.toByteArray(), BulkScorer.Format.BINARY));
+        assertTrue(tooLong.getMessage().contains("exceeds"), tooLong.getMessage());
+
+        BulkScorer small = new BulkScorer(OrderedSetSimilarity::orderedSetSimilarity, 1, 16, true, 2);
+        assertThrows(IOException.class, () -> score(small, input.toByteArray(), BulkScorer.Format.BINARY));
+    }
+
+    @Test
+    public void listFormat() {
+        assertArrayEquals(new int[]{1, -2, 3}, ListFormat.parse(" 1, -2\t 3 "));
+        assertArrayEquals(new int[0], ListFormat.parse(""));
+        assertArrayEquals(new int[]{2, 3}, ListFormat.parse("1\t2 3\t4", 2, 5, false));
+        assertEquals("1 -2 3", ListFormat.format(new int[]{1, -2, 3}));
+    }
+}
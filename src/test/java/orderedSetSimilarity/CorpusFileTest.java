@@ -0,0 +1,68 @@
+package orderedSetSimilarity;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CorpusFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void roundTrip() throws IOException {
+        Random random = new Random(31);
+        List<int[]> lists = SimilaritySearchTest.randomCorpus(random, 5000, 30, 100);
+        Path file = directory.resolve("corpus.bin");
+        CorpusFile.write(PackedCorpus.of(lists), file);
+
+        PackedCorpus mapped = CorpusFile.map(file);
+        assertEquals(lists.size(), mapped.size());
+        for (int i = 0; i < lists.size(); i++) {
+            assertArrayEquals(lists.get(i), mapped.get(i));
+        }
+        int[] query = lists.get(17);
+        assertEquals(SimilaritySearch.topK(query, lists, 10), mapped.topK(query, 10));
+    }
+
+    @Test
+    public void rejectsCorruptOffsets() throws IOException {
+        List<int[]> lists = List.of(new int[]{1, 1, 2}, new int[]{4, 5, 6}, new int[]{7});
+        Path file = directory.resolve("corpus.bin");
+        // offsets 0, 3, 6, 7 start right after the header
+        for (int[] corruption : new int[][]{{0, 1}, {1, 7}, {2, 2}, {3, 6}}) {
+            CorpusFile.write(PackedCorpus.of(lists), file);
+            try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+                raw.seek(CorpusFile.HEADER_BYTES + corruption[0] * Integer.BYTES);
+                raw.writeInt(Integer.reverseBytes(corruption[1]));
+            }
+            IOException error = assertThrows(IOException.class, () -> CorpusFile.map(file));
+            assertTrue(error.getMessage().contains("offsets"), error.getMessage());
+        }
+    }
+
+    @Test
+    public void rejectsOtherFiles() throws IOException {
+        Path file = directory.resolve("other.bin");
+        Files.write(file, new byte[64]);
+        assertThrows(IOException.class, () -> CorpusFile.map(file));
+
+        Path truncated = directory.resolve("truncated.bin");
+        CorpusFile.write(PackedCorpus.of(List.of(new int[]{1, 2, 3})), truncated);
+        byte[] bytes = Files.readAllBytes(truncated);
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 8));
+        assertThrows(IOException.class, () -> CorpusFile.map(truncated));
+    }
+}
@@ -0,0 +1,99 @@
+package orderedSetSimilarity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ElementDictionaryTest {
+
+    @Test
+    public void encodedListsMatchIntegerLists() {
+        ElementDictionary<String> dictionary = new ElementDictionary<>();
+        EncodedList list1 = dictionary.encode(Arrays.asList("d", "g", "c", "h", "i", "b"));
+        EncodedList list2 = dictionary.encode(Arrays.asList("d", "c", "g", "b", "i"));
+        assertEquals(0.7222222222222223, list1.orderedSetSimilarity(list2));
+        assertEquals(OrderedSetSimilarity.similarityReport(new int[]{4, 7, 3, 8, 9, 2}, new int[]{4, 3, 7, 2, 9}),
+                list1.similarityReport(list2));
+        assertEquals(Arrays.asList("d", "c", "g", "b", "i"), dictionary.decode(list2));
+    }
+
+    @Test
+    public void randomListsMatchStaticMethods() {
+        ElementDictionary<Long> dictionary = new ElementDictionary<>();
+        Random random = new Random(43);
+        for (int n = 0; n < 2000; n++) {
+            List<Long> keys1 = new ArrayList<>();
+            List<Long> keys2 = new ArrayList<>();
+            random.longs(random.nextInt(40), 0, 60).forEach(key -> keys1.add(key * 1_000_000_007L));
+            random.longs(random.nextInt(40), 0, 60).forEach(key -> keys2.add(key * 1_000_000_007L));
+            EncodedList list1 = dictionary.encode(keys1);
+            EncodedList list2 = dictionary.encode(keys2);
+            assertEquals(OrderedSetSimilarity.similarityReport(list1.ids(), list2.ids()), list1.similarityReport(list2));
+            assertEquals(OrderedSetSimilarity.kendallSimilarity(list1.ids(), list2.ids()), list1.kendallSimilarity(list2));
+        }
+        assertEquals(60, dictionary.size());
+    }
+
+    @Test
+    public void concurrentEncodingAssignsDenseUniqueIds() throws Exception {
+        ElementDictionary<String> dictionary = new ElementDictionary<>();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                futures.add(executor.submit(() -> {
+                    for (int key = 0; key < 10000; key++) {
+                        int id = dictionary.encode("sku-" + key);
+                        assertEquals("sku-" + key, dictionary.decode(id));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(10000, dictionary.size());
+        boolean[] seen = new boolean[10000];
+        for (int key = 0; key < 10000; key++) {
+            int id = dictionary.lookup("sku-" + key);
+            assertFalse(seen[id]);
+            seen[id] = true;
+        }
+        assertEquals(-1, dictionary.lookup("unknown"));
+    }
+
+    @Test
+    public void threadLocalWorkspaceIsSharedAndTrimmed() {
+        ElementDictionary<Integer> dictionary = new ElementDictionary<>(1 << 10);
+        List<Integer> keys = new ArrayList<>();
+        for (int key = 0; key < 100_000; key++) {
+            keys.add(key);
+        }
+        EncodedList list = dictionary.encode(keys);
+        assertEquals(1.0, list.kendallSimilarity(list), 0.0);
+        assertEquals(1.0, list.orderedSetSimilarity(list, dictionary.workspace()), 0.0);
+
+        // ids beyond the dense universe are hashed, and those tables are released after the call
+        SimilarityWorkspace workspace = dictionary.localWorkspace();
+        assertTrue(workspace.indexMap1.capacity() <= SimilarityWorkspace.RETAINED_CAPACITY);
+        assertTrue(workspace.scratch(0).length <= SimilarityWorkspace.RETAINED_CAPACITY);
+        assertSame(workspace, new ElementDictionary<String>().localWorkspace());
+    }
+
+    @Test
+    public void listsOfDifferentDictionariesCannotBeCompared() {
+        EncodedList list1 = new ElementDictionary<String>().encode(List.of("a"));
+        EncodedList list2 = new ElementDictionary<String>().encode(List.of("a"));
+        assertThrows(IllegalArgumentException.class, () -> list1.orderedSetSimilarity(list2));
+    }
+}
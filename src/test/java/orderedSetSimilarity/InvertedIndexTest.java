@@ -0,0 +1,45 @@
+package orderedSetSimilarity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InvertedIndexTest {
+
+    @Test
+    public void candidatesShareAnElement() {
+        List<int[]> corpus = List.of(new int[]{1, 2, 3}, new int[]{4, 5}, new int[0], new int[]{3, 3, 6}, new int[]{7});
+        InvertedIndex index = InvertedIndex.build(corpus);
+        assertEquals(5, index.size());
+        assertArrayEquals(new int[]{0, 3}, index.candidates(new int[]{3, 9}));
+        assertArrayEquals(new int[]{0, 1}, index.candidates(new int[]{5, 1, 1}));
+        assertArrayEquals(new int[0], index.candidates(new int[]{8}));
+        assertArrayEquals(new int[]{2}, index.candidates(new int[0]));
+    }
+
+    @Test
+    public void topKSameAsBruteForceWithoutZeroScores() {
+        Random random = new Random(5);
+        // a sparse catalog where most lists share nothing with a given query
+        List<int[]> corpus = SimilaritySearchTest.randomCorpus(random, 5000, 10, 2000);
+        InvertedIndex index = InvertedIndex.build(corpus);
+        for (int n = 0; n < 200; n++) {
+            int[] query = random.ints(random.nextInt(10), 0, 2000).toArray();
+            List<Match> expected = SimilaritySearchTest.bruteForceTopK(query, corpus, 10).stream()
+                    .filter(match -> match.score() > 0.0)
+                    .collect(Collectors.toList());
+            assertEquals(expected, index.topK(query, 10));
+
+            int[] overlapping = IntStream.range(0, corpus.size())
+                    .filter(i -> OrderedSetSimilarity.jaccardSimilarity(query, corpus.get(i)) > 0.0)
+                    .toArray();
+            assertArrayEquals(overlapping, index.candidates(query));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package orderedSetSimilarity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MinHashIndexTest {
+
+    @Test
+    public void findsListsWithTheSameElements() {
+        Random random = new Random(9);
+        List<int[]> corpus = SimilaritySearchTest.randomCorpus(random, 2000, 20, 100000);
+        MinHashIndex index = MinHashIndex.build(corpus, 16, 4);
+        for (int id = 0; id < corpus.size(); id += 7) {
+            int[] list = corpus.get(id);
+            if (list.length == 0) {
+                continue;
+            }
+            // every band of a list with the same elements lands in the same bucket, whatever the order
+            int[] reversed = new int[list.length];
+            for (int i = 0; i < list.length; i++) {
+                reversed[i] = list[list.length - 1 - i];
+            }
+            int candidate = id;
+            assertTrue(Arrays.stream(index.candidates(reversed)).anyMatch(c -> c == candidate));
+        }
+    }
+
+    @Test
+    public void scoresAreExact() {
+        Random random = new Random(10);
+        List<int[]> corpus = SimilaritySearchTest.randomCorpus(random, 2000, 15, 40);
+        MinHashIndex index = MinHashIndex.build(corpus, 10, 2, 3);
+        for (int n = 0; n < 50; n++) {
+            int[] query = random.ints(1 + random.nextInt(15), 0, 40).toArray();
+            List<Match> matches = index.topK(query, 10);
+            for (Match match : matches) {
+                assertEquals(OrderedSetSimilarity.orderedSetSimilarity(query, corpus.get(match.index())), match.score(), 0.0);
+            }
+            List<Match> sorted = new ArrayList<>(matches);
+            sorted.sort((a, b) -> Double.compare(b.score(), a.score()));
+            assertEquals(sorted, matches);
+        }
+    }
+
+    @Test
+    public void emptyLists() {
+        List<int[]> corpus = List.of(new int[]{1, 2}, new int[0], new int[]{3}, new int[0]);
+        MinHashIndex index = MinHashIndex.build(corpus, 4, 2);
+        assertArrayEquals(new int[]{1, 3}, index.candidates(new int[0]));
+        assertEquals(List.of(new Match(0, 1.0)), index.topK(new int[]{1, 2}, 3));
+    }
+
+    @Test
+    public void invalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> MinHashIndex.build(List.of(), 0, 2));
+    }
+}
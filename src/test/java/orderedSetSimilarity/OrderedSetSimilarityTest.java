@@ -3,21 +3,27 @@ package orderedSetSimilarity;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
-import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.BiConsumer;
 
 import static orderedSetSimilarity.OrderedSetSimilarity.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class OrderedSetSimilarityTest {
 
-    private static List<Integer> generateRandomList(Random random) {
-        int size = random.nextInt(50); // Random size between 0 and 49
-        Set<Integer> list = new HashSet<>(size);
-        for (int i = 0; i < size; i++) {
-            list.add(random.nextInt(100)); // Random integers between 0 and 99
+    /**
+     * run a differential check on random pairs of lists with ids in [minId, maxId). The id range is kept small so the
+     * lists overlap and contain duplicates, which is where the fast paths and their oracles tend to disagree.
+     */
+    static void forRandomPairs(long seed, int pairs, int maxLength, int minId, int maxId, BiConsumer<int[], int[]> check) {
+        Random random = new Random(seed);
+        for (int n = 0; n < pairs; n++) {
+            int[] list1 = random.ints(random.nextInt(maxLength), minId, maxId).toArray();
+            int[] list2 = random.ints(random.nextInt(maxLength), minId, maxId).toArray();
+            check.accept(list1, list2);
         }
-        return list.stream().toList();
     }
 
     @Test
@@ -42,26 +48,178 @@ class OrderedSetSimilarityTest {
         assertEquals(0.0, orderedSetSimilarity(Arrays.asList(4, 7), Collections.emptyList()));
     }
 
-    @Test
-    public void performanceTest() {
-        Random random = new Random();
-        int numComparisons = 1500000;
+    @Nested
+    public class PrimitiveEngineTest {
+        // the original boxed implementation, kept as the reference for the primitive engine
+        private double boxedOrderedSetSimilarity(int[] list1, int[] list2) {
+            if (list1.length == 0 && list2.length == 0) {
+                return 1.0;
+            }
+            Map<Integer, Integer> indexMap1 = new HashMap<>();
+            Map<Integer, Integer> indexMap2 = new HashMap<>();
+            for (int i = 0; i < list1.length; i++) {
+                indexMap1.put(list1[i], i);
+            }
+            for (int i = 0; i < list2.length; i++) {
+                indexMap2.put(list2[i], i);
+            }
+            int intersectionSize = (int) indexMap1.keySet().stream().filter(indexMap2::containsKey).count();
+            int unionSize = indexMap1.size() + indexMap2.size() - intersectionSize;
+            double jaccardSimilarity = (double) intersectionSize / unionSize;
+            if (jaccardSimilarity == 0.0) {
+                return 0.0;
+            }
+            int maxListSize = Math.max(list1.length, list2.length);
+            if (maxListSize <= 1) {
+                return jaccardSimilarity;
+            }
+            double totalPenalty = 0.0;
+            for (int element : list1) {
+                if (indexMap2.containsKey(element)) {
+                    totalPenalty += Math.abs(indexMap1.get(element) - indexMap2.get(element));
+                }
+            }
+            double maxPenalty = maxListSize * intersectionSize;
+            return jaccardSimilarity * (1.0 - (totalPenalty / maxPenalty));
+        }
+
+        @Test
+        public void matchesBoxedImplementation() {
+            SimilarityWorkspace workspace = new SimilarityWorkspace();
+            forRandomPairs(42, 20000, 60, -20, 40, (list1, list2) -> {
+                double expected = boxedOrderedSetSimilarity(list1, list2);
+                assertEquals(expected, orderedSetSimilarity(list1, list2, workspace), 0.0);
+                assertEquals(expected, orderedSetSimilarity(list1, list2), 0.0);
+            });
+        }
+
+        @Test
+        public void denseIdWorkspaceMatchesBoxedImplementation() {
+            SimilarityWorkspace workspace = new SimilarityWorkspace(8, 30);
+            // ids in [-10, 40) so some fall outside the declared universe [0, 30)
+            forRandomPairs(43, 20000, 60, -10, 40, (list1, list2) -> {
+                double expected = boxedOrderedSetSimilarity(list1, list2);
+                assertEquals(expected, orderedSetSimilarity(list1, list2, workspace), 0.0);
+                assertEquals(jaccardSimilarity(list1, list2), jaccardSimilarity(list1, list2, workspace), 0.0);
+                assertEquals(kendallSimilarity(list1, list2), kendallSimilarity(list1, list2, workspace), 0.0);
+                assertEquals(displacementSimilarity(list1, list2), displacementSimilarity(list1, list2, workspace), 0.0);
+            });
+        }
+
+        @Test
+        public void workspaceGrowsForLongLists() {
+            SimilarityWorkspace workspace = new SimilarityWorkspace(1);
+            int[] list1 = new Random(7).ints(5000, 0, 100000).toArray();
+            int[] list2 = list1.clone();
+            assertEquals(1.0, orderedSetSimilarity(list1, list2, workspace), 0.0);
+            assertEquals(boxedOrderedSetSimilarity(list1, new int[]{list1[3]}), orderedSetSimilarity(list1, new int[]{list1[3]}, workspace), 0.0);
+        }
+
+        @Test
+        public void threadLocalWorkspaceDoesNotRetainLargeTables() {
+            int[] list1 = new Random(9).ints().distinct().limit(1_000_000).toArray();
+            int[] list2 = list1.clone();
+            assertEquals(1.0, kendallSimilarity(list1, list2), 0.0);
+            assertEquals(1.0, orderedSetSimilarity(list1, list2), 0.0);
 
-        LocalDateTime start = LocalDateTime.now();
-        List<Integer> list1 = generateRandomList(random);
+            SimilarityWorkspace workspace = SimilarityWorkspace.local();
+            assertTrue(workspace.indexMap1.capacity() <= SimilarityWorkspace.RETAINED_CAPACITY);
+            assertTrue(workspace.indexMap2.capacity() <= SimilarityWorkspace.RETAINED_CAPACITY);
+            assertTrue(workspace.scratch(0).length <= SimilarityWorkspace.RETAINED_CAPACITY);
+            assertTrue(workspace.buffer(0).length <= SimilarityWorkspace.RETAINED_CAPACITY);
+
+            // a workspace owned by the caller keeps its tables
+            SimilarityWorkspace owned = new SimilarityWorkspace();
+            orderedSetSimilarity(list1, list2, owned);
+            assertTrue(owned.indexMap1.capacity() >= list1.length);
+        }
+    }
 
-        List<Map.Entry<List<Integer>, Double>> listSimilarities = new ArrayList<>(numComparisons);
-        for (int i = 0; i < numComparisons; i++) {
-            List<Integer> list2 = generateRandomList(random);
-            listSimilarities.add(new AbstractMap.SimpleEntry<>(list2, orderedSetSimilarity(list1, list2)));
+    @Nested
+    public class SimilarityReportTest {
+        @Test
+        public void matchesSingleMetrics() {
+            forRandomPairs(53, 20000, 40, 0, 25, (list1, list2) -> {
+                SimilarityReport report = similarityReport(list1, list2);
+                assertEquals(orderedSetSimilarity(list1, list2), report.orderedSetSimilarity(), 0.0);
+                assertEquals(jaccardSimilarity(list1, list2), report.jaccardSimilarity(), 0.0);
+                assertEquals(kendallSimilarity(list1, list2), report.kendallSimilarity(), 0.0);
+                assertEquals(displacementSimilarity(list1, list2), report.displacementSimilarity(), 0.0);
+            });
         }
-        System.out.println("Comparing similarity took: " + (LocalDateTime.now().getSecond() - start.getSecond()) + " seconds");
 
-        listSimilarities.sort(Comparator.<Map.Entry<List<Integer>, Double>>comparingDouble(Map.Entry::getValue).reversed());
-        System.out.println(list1);
-        listSimilarities.subList(0, 10).forEach(System.out::println);
-        System.out.println("...");
-        listSimilarities.subList(listSimilarities.size() - 10, listSimilarities.size()).forEach(System.out::println);
+        @Test
+        public void knownValues() {
+            SimilarityReport report = similarityReport(Arrays.asList(4, 7, 3, 8, 9, 2), Arrays.asList(4, 3, 7, 2, 9));
+            assertEquals(new SimilarityReport(0.7222222222222223, 0.8333333333333334, 0.8, 0.8666666666666667, 5, 6, 4), report);
+            assertEquals(new SimilarityReport(1.0, 1.0, 1.0, 1.0, 0, 0, 0), similarityReport(new int[0], new int[0]));
+        }
+
+        @Test
+        public void batch() {
+            int[] list1 = {4, 7, 3, 8, 9, 2};
+            List<int[]> candidates = List.of(new int[]{4, 3, 7, 2, 9}, new int[]{3, 9, 2}, new int[0]);
+            List<SimilarityReport> reports = similarityReports(list1, candidates);
+            assertEquals(3, reports.size());
+            for (int i = 0; i < candidates.size(); i++) {
+                assertEquals(similarityReport(list1, candidates.get(i)), reports.get(i));
+            }
+        }
+    }
+
+    @Nested
+    public class DepthLimitedSimilarityTest {
+        @Test
+        public void everyDepthMatchesThePrefixes() {
+            Random random = new Random(73);
+            for (int n = 0; n < 5000; n++) {
+                int[] list1 = random.ints(0, 60).distinct().limit(random.nextInt(40)).toArray();
+                int[] list2 = random.ints(0, 60).distinct().limit(random.nextInt(40)).toArray();
+                int depth = 1 + random.nextInt(50);
+                double[] scores = depthSimilarities(list1, list2, depth);
+                assertEquals(Math.min(depth, Math.max(list1.length, list2.length)), scores.length);
+                double sum = 0.0;
+                for (int d = 1; d <= scores.length; d++) {
+                    int[] prefix1 = Arrays.copyOf(list1, Math.min(d, list1.length));
+                    int[] prefix2 = Arrays.copyOf(list2, Math.min(d, list2.length));
+                    assertEquals(orderedSetSimilarity(prefix1, prefix2), scores[d - 1], 1e-12);
+                    sum += scores[d - 1];
+                }
+                double expected = scores.length == 0 ? 1.0 : sum / scores.length;
+                assertEquals(expected, depthLimitedSimilarity(list1, list2, depth), 1e-12);
+            }
+        }
+
+        @Test
+        public void earlyTerminationBoundsTheScore() {
+            Random random = new Random(79);
+            SimilarityWorkspace workspace = new SimilarityWorkspace();
+            for (int n = 0; n < 5000; n++) {
+                int[] list1 = random.ints(random.nextInt(40), 0, 30).toArray();
+                int[] list2 = random.ints(random.nextInt(40), 0, 30).toArray();
+                int depth = 1 + random.nextInt(50);
+                double threshold = random.nextDouble();
+                double score = depthLimitedSimilarity(list1, list2, depth);
+                double bounded = depthLimitedSimilarity(list1, list2, depth, threshold, workspace);
+                if (score >= threshold) {
+                    assertEquals(score, bounded, 0.0);
+                } else {
+                    assertTrue(bounded < threshold && bounded >= score - 1e-12);
+                }
+            }
+        }
+
+        @Test
+        public void onlyTheHeadCounts() {
+            // same head, completely different tails
+            int[] list1 = {1, 2, 3, 10, 11, 12, 13, 14, 15};
+            int[] list2 = {1, 2, 3, 20, 21, 22, 23, 24, 25};
+            assertEquals(1.0, depthLimitedSimilarity(list1, list2, 3));
+            assertTrue(depthLimitedSimilarity(list1, list2, 9) < 1.0);
+            assertEquals(1.0, depthLimitedSimilarity(new int[0], new int[0], 5));
+            assertEquals(0.0, depthLimitedSimilarity(Arrays.asList(1, 2), Arrays.asList(3, 4), 2));
+            assertThrows(IllegalArgumentException.class, () -> depthLimitedSimilarity(list1, list2, 0));
+        }
     }
 
     @Nested
@@ -228,6 +386,60 @@ class OrderedSetSimilarityTest {
             assertEquals(1.0, kendallSimilarity(list1, list2), 0.0);
             assertEquals(kendallSimilarity(list1, list2), kendallSimilarity(list2, list1));
         }
+
+        // the original pairwise definition, kept as the reference for the merge sort implementation
+        private double pairwiseKendallSimilarity(int[] list1, int[] list2) {
+            if (list1.length < 2 || list2.length < 2) {
+                return 1.0;
+            }
+            Set<Integer> set2 = new HashSet<>();
+            Arrays.stream(list2).forEach(set2::add);
+            int intersectionSize = (int) Arrays.stream(list1).distinct().filter(set2::contains).count();
+            if (intersectionSize < 2) {
+                return 1.0;
+            }
+            Map<Integer, Integer> indexMap = new HashMap<>();
+            for (int i = 0; i < list2.length; i++) {
+                indexMap.put(list2[i], i);
+            }
+            int concordant = 0;
+            int discordant = 0;
+            for (int i = 0; i < list1.length - 1; i++) {
+                Integer indexOfI = indexMap.get(list1[i]);
+                if (indexOfI == null) {
+                    continue;
+                }
+                for (int j = i + 1; j < list1.length; j++) {
+                    Integer indexOfJ = indexMap.get(list1[j]);
+                    if (indexOfJ == null) {
+                        continue;
+                    }
+                    if (indexOfI < indexOfJ) {
+                        concordant++;
+                    } else {
+                        discordant++;
+                    }
+                }
+            }
+            return 0.5 * (1 + (concordant - discordant) / (0.5 * intersectionSize * (intersectionSize - 1)));
+        }
+
+        @Test
+        public void matchesPairwiseDefinition() {
+            forRandomPairs(17, 20000, 40, 0, 25,
+                    (list1, list2) -> assertEquals(pairwiseKendallSimilarity(list1, list2), kendallSimilarity(list1, list2), 0.0));
+        }
+
+        @Test
+        public void longRankings() {
+            int[] ranking = new Random(19).ints(0, 1000000).distinct().limit(10000).toArray();
+            int[] reversed = new int[ranking.length];
+            for (int i = 0; i < ranking.length; i++) {
+                reversed[i] = ranking[ranking.length - 1 - i];
+            }
+            assertEquals(1.0, kendallSimilarity(ranking, ranking.clone()), 0.0);
+            assertEquals(0.0, kendallSimilarity(ranking, reversed), 0.0);
+        }
     }
 
     @Nested
@@ -0,0 +1,49 @@
+package orderedSetSimilarity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PackedCorpusTest {
+
+    private static PackedCorpus offHeap(List<int[]> lists) {
+        PackedCorpus.Builder builder = new PackedCorpus.Builder();
+        lists.forEach(builder::add);
+        return builder.buildOffHeap();
+    }
+
+    @Test
+    public void storesLists() {
+        List<int[]> lists = List.of(new int[]{3, 1, 3}, new int[0], new int[]{7, 8, 9, 10});
+        for (PackedCorpus corpus : List.of(PackedCorpus.of(lists), offHeap(lists))) {
+            assertEquals(3, corpus.size());
+            assertEquals(7, corpus.elementCount());
+            assertArrayEquals(new int[]{3, 1, 3}, corpus.get(0));
+            assertArrayEquals(new int[0], corpus.get(1));
+            assertEquals(4, corpus.length(2));
+            assertEquals(2, corpus.distinctCount(0));
+            assertEquals(0, corpus.distinctCount(1));
+        }
+    }
+
+    @Test
+    public void batchScoresMatchStaticMethod() {
+        Random random = new Random(29);
+        List<int[]> lists = SimilaritySearchTest.randomCorpus(random, 2000, 30, 50);
+        for (PackedCorpus corpus : List.of(PackedCorpus.of(lists), offHeap(lists))) {
+            for (int n = 0; n < 20; n++) {
+                int[] query = random.ints(random.nextInt(30), 0, 50).toArray();
+                double[] scores = new double[500];
+                corpus.orderedSetSimilarity(new PreparedList(query), 1000, 1500, scores, new SimilarityWorkspace());
+                for (int i = 0; i < scores.length; i++) {
+                    assertEquals(OrderedSetSimilarity.orderedSetSimilarity(query, lists.get(1000 + i)), scores[i], 0.0);
+                }
+                assertEquals(SimilaritySearch.topK(query, lists, 10), corpus.topK(query, 10));
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package orderedSetSimilarity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static orderedSetSimilarity.OrderedSetSimilarity.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PreparedListTest {
+
+    @Test
+    public void matchesStaticMethods() {
+        SimilarityWorkspace workspace = new SimilarityWorkspace();
+        OrderedSetSimilarityTest.forRandomPairs(3, 20000, 40, 0, 30, (query, candidate) -> {
+            PreparedList prepared = new PreparedList(query);
+            assertEquals(orderedSetSimilarity(query, candidate), prepared.orderedSetSimilarity(candidate, workspace), 0.0);
+            assertEquals(jaccardSimilarity(query, candidate), prepared.jaccardSimilarity(candidate, workspace), 0.0);
+            assertEquals(kendallSimilarity(query, candidate), prepared.kendallSimilarity(candidate, workspace), 0.0);
+            assertEquals(displacementSimilarity(query, candidate), prepared.displacementSimilarity(candidate, workspace), 0.0);
+        });
+    }
+
+    @Test
+    public void knownValues() {
+        PreparedList prepared = new PreparedList(Arrays.asList(4, 7, 3, 8, 9, 2));
+        assertEquals(6, prepared.size());
+        assertEquals(6, prepared.distinctCount());
+        assertEquals(0.7222222222222223, prepared.orderedSetSimilarity(new int[]{4, 3, 7, 2, 9}));
+        assertEquals(0.8, prepared.kendallSimilarity(new int[]{4, 3, 7, 2, 9}));
+        assertEquals(0.8666666666666667, prepared.displacementSimilarity(new int[]{4, 3, 7, 2, 9}));
+        assertEquals(0.5, prepared.jaccardSimilarity(new int[]{3, 9, 2}));
+        assertEquals(0.0, prepared.orderedSetSimilarity(new int[0]));
+    }
+
+    @Test
+    public void emptyList() {
+        PreparedList prepared = new PreparedList(new int[0]);
+        assertEquals(0, prepared.distinctCount());
+        assertEquals(1.0, prepared.orderedSetSimilarity(new int[0]));
+        assertEquals(1.0, prepared.jaccardSimilarity(new int[0]));
+        assertEquals(1.0, prepared.kendallSimilarity(new int[]{1, 2}));
+        assertEquals(1.0, prepared.displacementSimilarity(new int[]{1}));
+    }
+}
@@ -0,0 +1,86 @@
+package orderedSetSimilarity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScoreCacheTest {
+
+    @Test
+    public void repeatedPairsAreServedFromTheCache() {
+        AtomicInteger comparisons = new AtomicInteger();
+        ScoreCache cache = new ScoreCache(64, (list1, list2) -> {
+            comparisons.incrementAndGet();
+            return OrderedSetSimilarity.orderedSetSimilarity(list1, list2);
+        });
+        FingerprintedList list1 = new FingerprintedList(new int[]{4, 7, 3, 8, 9, 2});
+        FingerprintedList list2 = new FingerprintedList(List.of(4, 3, 7, 2, 9));
+        for (int n = 0; n < 10; n++) {
+            assertEquals(0.7222222222222223, cache.score(list1, list2));
+        }
+        assertEquals(1, comparisons.get());
+        assertEquals(9, cache.hits());
+        assertEquals(1, cache.misses());
+        assertEquals(0.9, cache.hitRate(), 1e-12);
+
+        // the metric is not symmetric in general, so the reversed pair is another key
+        cache.score(list2, list1);
+        assertEquals(2, comparisons.get());
+
+        cache.clear();
+        cache.score(list1, list2);
+        assertEquals(3, comparisons.get());
+    }
+
+    @Test
+    public void fingerprintIsOrderSensitive() {
+        assertEquals(FingerprintedList.fingerprint(new int[]{1, 2, 3}), new FingerprintedList(List.of(1, 2, 3)).fingerprint());
+        assertNotEquals(FingerprintedList.fingerprint(new int[]{1, 2, 3}), FingerprintedList.fingerprint(new int[]{3, 2, 1}));
+        assertNotEquals(FingerprintedList.fingerprint(new int[]{0}), FingerprintedList.fingerprint(new int[]{0, 0}));
+        assertNotEquals(FingerprintedList.fingerprint(new int[0]), FingerprintedList.fingerprint(new int[]{0}));
+    }
+
+    @Test
+    public void boundedUnderConcurrentLoad() throws Exception {
+        ScoreCache cache = new ScoreCache(256);
+        assertEquals(256, cache.capacity());
+        List<FingerprintedList> lists = new ArrayList<>();
+        for (int[] list : SimilaritySearchTest.randomCorpus(new Random(53), 100, 20, 40)) {
+            lists.add(new FingerprintedList(list));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                int seed = thread;
+                futures.add(executor.submit(() -> {
+                    Random random = new Random(seed);
+                    for (int n = 0; n < 20000; n++) {
+                        // a small hot set of pairs plus a long tail
+                        int bound = random.nextInt(4) == 0 ? lists.size() : 8;
+                        FingerprintedList list1 = lists.get(random.nextInt(bound));
+                        FingerprintedList list2 = lists.get(random.nextInt(bound));
+                        assertEquals(OrderedSetSimilarity.orderedSetSimilarity(list1.elements(), list2.elements()), cache.score(list1, list2));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(80000, cache.hits() + cache.misses());
+        assertTrue(cache.evictions() > 0);
+        assertTrue(cache.hitRate() > 0.5, "hit rate " + cache.hitRate());
+    }
+}
@@ -0,0 +1,89 @@
+package orderedSetSimilarity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SimilarityJoinTest {
+
+    private static List<SimilarPair> bruteForceJoin(List<int[]> lists, double threshold) {
+        List<SimilarPair> pairs = new ArrayList<>();
+        for (int left = 0; left < lists.size(); left++) {
+            for (int right = left + 1; right < lists.size(); right++) {
+                double score = OrderedSetSimilarity.orderedSetSimilarity(lists.get(left), lists.get(right));
+                if (score >= threshold) {
+                    pairs.add(new SimilarPair(left, right, score));
+                }
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * random lists, each followed by a few copies with some elements swapped, replaced or dropped.
+     */
+    private static List<int[]> nearDuplicates(Random random, int groups) {
+        List<int[]> lists = new ArrayList<>();
+        for (int group = 0; group < groups; group++) {
+            int[] base = random.ints(random.nextInt(30), 0, 200).toArray();
+            lists.add(base);
+            for (int copy = random.nextInt(4); copy > 0; copy--) {
+                int[] list = base.clone();
+                for (int edit = random.nextInt(4); edit > 0 && list.length > 1; edit--) {
+                    int i = random.nextInt(list.length);
+                    switch (random.nextInt(3)) {
+                        case 0 -> {
+                            int j = random.nextInt(list.length);
+                            int swap = list[i];
+                            list[i] = list[j];
+                            list[j] = swap;
+                        }
+                        case 1 -> list[i] = random.nextInt(200);
+                        default -> {
+                            System.arraycopy(list, i + 1, list, i, list.length - i - 1);
+                            list = Arrays.copyOf(list, list.length - 1);
+                        }
+                    }
+                }
+                lists.add(list);
+            }
+        }
+        return lists;
+    }
+
+    @Test
+    public void matchesBruteForce() {
+        Random random = new Random(47);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int n = 0; n < 5; n++) {
+                List<int[]> lists = nearDuplicates(random, 300);
+                for (double threshold : new double[]{0.1, 0.3, 0.5, 0.7, 0.8, 0.9, 1.0}) {
+                    assertEquals(bruteForceJoin(lists, threshold), SimilarityJoin.join(lists, threshold, pool));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void emptyListsJoinEachOther() {
+        List<int[]> lists = List.of(new int[0], new int[]{1, 2}, new int[0], new int[]{2, 1}, new int[0]);
+        assertEquals(List.of(new SimilarPair(0, 2, 1.0), new SimilarPair(0, 4, 1.0), new SimilarPair(2, 4, 1.0)),
+                SimilarityJoin.join(lists, 0.6));
+    }
+
+    @Test
+    public void thresholdOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> SimilarityJoin.join(List.of(), 0.0));
+        assertThrows(IllegalArgumentException.class, () -> SimilarityJoin.join(List.of(), 1.5));
+    }
+}
@@ -0,0 +1,107 @@
+package orderedSetSimilarity;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static orderedSetSimilarity.SimilarityMetrics.Metric.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimilarityMetricsTest {
+
+    @AfterEach
+    public void tearDown() {
+        SimilarityMetrics.disable();
+        SimilarityMetrics.setSlowThresholdNanos(1_000_000L);
+        SimilarityMetrics.reset();
+    }
+
+    @Test
+    public void nothingIsRecordedWhileDisabled() {
+        SimilarityMetrics.reset();
+        OrderedSetSimilarity.orderedSetSimilarity(new int[]{1, 2, 3}, new int[]{4, 5});
+        assertEquals(0, SimilarityMetrics.latency(ORDERED_SET_SIMILARITY).count());
+        assertEquals(0, SimilarityMetrics.listLengths().count());
+        assertEquals(0, SimilarityMetrics.earlyExits());
+    }
+
+    @Test
+    public void countersAndHistograms() {
+        SimilarityMetrics.reset();
+        SimilarityMetrics.enable();
+        OrderedSetSimilarity.orderedSetSimilarity(new int[]{1, 2, 3}, new int[]{4, 5});
+        OrderedSetSimilarity.orderedSetSimilarity(new int[]{4, 7, 3, 8, 9, 2}, new int[]{4, 3, 7, 2, 9});
+        OrderedSetSimilarity.kendallSimilarity(new int[]{1, 2, 3}, new int[]{3, 2, 1});
+
+        assertEquals(2, SimilarityMetrics.latency(ORDERED_SET_SIMILARITY).count());
+        assertEquals(1, SimilarityMetrics.latency(KENDALL_SIMILARITY).count());
+        assertEquals(0, SimilarityMetrics.latency(JACCARD_SIMILARITY).count());
+        assertEquals(1, SimilarityMetrics.earlyExits());
+
+        // lengths 3, 2, 6, 5, 3, 3 fall into the buckets [2, 4) and [4, 8)
+        assertEquals(6, SimilarityMetrics.listLengths().count());
+        assertEquals(4, SimilarityMetrics.listLengths().count(2));
+        assertEquals(2, SimilarityMetrics.listLengths().count(3));
+        assertEquals(7, SimilarityMetrics.listLengths().quantileUpperBound(1.0));
+        assertEquals(3, SimilarityMetrics.listLengths().quantileUpperBound(0.5));
+
+        // intersection sizes 0, 5 and 3
+        assertEquals(1, SimilarityMetrics.intersectionSizes().count(0));
+        assertEquals(3, SimilarityMetrics.intersectionSizes().count());
+    }
+
+    @Test
+    public void everyHistogramSamplesTheSameComparisons() {
+        SimilarityMetrics.reset();
+        SimilarityMetrics.enable();
+        // the prepared engine shares the kernels but is not instrumented, so it must not show up anywhere
+        new PreparedList(new int[]{1, 2, 3}).orderedSetSimilarity(new int[]{4, 5});
+        assertEquals(0, SimilarityMetrics.intersectionSizes().count());
+        assertEquals(0, SimilarityMetrics.earlyExits());
+
+        OrderedSetSimilarity.orderedSetSimilarity(new int[]{1, 2, 3}, new int[]{4, 5});
+        OrderedSetSimilarity.jaccardSimilarity(new int[]{1, 2, 3}, new int[]{3, 5});
+        OrderedSetSimilarity.similarityReport(new int[]{1, 2}, new int[]{2, 1});
+        // trivial comparisons are counted too
+        OrderedSetSimilarity.kendallSimilarity(new int[]{1}, new int[]{1, 2, 3});
+        OrderedSetSimilarity.displacementSimilarity(new int[0], new int[]{7});
+        long comparisons = 0;
+        for (SimilarityMetrics.Metric metric : SimilarityMetrics.Metric.values()) {
+            comparisons += SimilarityMetrics.latency(metric).count();
+        }
+        assertEquals(5, comparisons);
+        assertEquals(1, SimilarityMetrics.latency(SimilarityMetrics.Metric.KENDALL_SIMILARITY).count());
+        assertEquals(1, SimilarityMetrics.latency(SimilarityMetrics.Metric.DISPLACEMENT_SIMILARITY).count());
+        assertEquals(comparisons, SimilarityMetrics.intersectionSizes().count());
+        assertEquals(2 * comparisons, SimilarityMetrics.listLengths().count());
+        assertEquals(1, SimilarityMetrics.earlyExits());
+    }
+
+    @Test
+    public void slowComparisonsAreRecordedAsJfrEvents(@TempDir Path directory) throws Exception {
+        SimilarityMetrics.enable();
+        SimilarityMetrics.setSlowThresholdNanos(0);
+        Path file = directory.resolve("recording.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(SlowComparisonEvent.class);
+            recording.start();
+            OrderedSetSimilarity.displacementSimilarity(new int[]{1, 2, 3, 4}, new int[]{4, 3, 2});
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals("orderedSetSimilarity.SlowComparison"))
+                .toList();
+        assertEquals(1, events.size());
+        assertEquals("DISPLACEMENT_SIMILARITY", events.get(0).getString("metric"));
+        assertEquals(4, events.get(0).getInt("length1"));
+        assertEquals(3, events.get(0).getInt("length2"));
+    }
+}
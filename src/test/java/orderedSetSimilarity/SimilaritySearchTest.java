@@ -0,0 +1,55 @@
+package orderedSetSimilarity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SimilaritySearchTest {
+
+    static List<Match> bruteForceTopK(int[] query, List<int[]> corpus, int k) {
+        List<Match> matches = new ArrayList<>();
+        for (int i = 0; i < corpus.size(); i++) {
+            matches.add(new Match(i, OrderedSetSimilarity.orderedSetSimilarity(query, corpus.get(i))));
+        }
+        matches.sort(Comparator.comparingDouble(Match::score).reversed());
+        return matches.subList(0, Math.min(k, matches.size()));
+    }
+
+    static List<int[]> randomCorpus(Random random, int size, int maxLength, int idRange) {
+        List<int[]> corpus = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            corpus.add(random.ints(random.nextInt(maxLength), 0, idRange).toArray());
+        }
+        return corpus;
+    }
+
+    @Test
+    public void sameAsBruteForce() {
+        Random random = new Random(11);
+        List<int[]> corpus = randomCorpus(random, 3000, 30, 60);
+        for (int n = 0; n < 50; n++) {
+            int[] query = random.ints(random.nextInt(30), 0, 60).toArray();
+            for (int k : new int[]{0, 1, 10, 100}) {
+                assertEquals(bruteForceTopK(query, corpus, k), SimilaritySearch.topK(query, corpus, k));
+            }
+        }
+    }
+
+    @Test
+    public void ties() {
+        List<int[]> corpus = List.of(new int[]{1, 2}, new int[]{3}, new int[]{1, 2}, new int[0], new int[]{1, 2});
+        assertEquals(List.of(new Match(0, 1.0), new Match(2, 1.0)), SimilaritySearch.topK(new int[]{1, 2}, corpus, 2));
+        assertEquals(List.of(new Match(3, 1.0), new Match(0, 0.0)), SimilaritySearch.topK(new int[0], corpus, 2));
+    }
+
+    @Test
+    public void kLargerThanCorpus() {
+        List<int[]> corpus = List.of(new int[]{1, 2, 3}, new int[]{3, 2, 1});
+        assertEquals(List.of(new Match(0, 1.0), new Match(1, 0.5555555555555556)), SimilaritySearch.topK(new int[]{1, 2, 3}, corpus, 5));
+    }
+}
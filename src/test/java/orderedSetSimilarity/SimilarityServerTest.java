@@ -0,0 +1,97 @@
+package orderedSetSimilarity;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimilarityServerTest {
+
+    private static HttpResponse<String> post(HttpClient client, SimilarityServer server, String path, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.port() + path))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    public void similarity() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        try (SimilarityServer server = SimilarityServer.start(0)) {
+            HttpResponse<String> response = post(client, server, "/similarity", "4 7 3 8 9 2\n4,3,7,2,9\n");
+            assertEquals(200, response.statusCode());
+            assertEquals("0.7222222222222223\n", response.body());
+
+            assertEquals("1.0\n", post(client, server, "/similarity", "\n\n").body());
+            assertEquals(400, post(client, server, "/similarity", "1 2 x\n1 2\n").statusCode());
+            assertEquals(400, post(client, server, "/similarity", "1 2\n").statusCode());
+        }
+    }
+
+    @Test
+    public void concurrentRequestsWithTheSameQueryAreBatched() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        int[] query = new Random(59).ints(50, 0, 100).toArray();
+        List<int[]> candidates = SimilaritySearchTest.randomCorpus(new Random(61), 200, 60, 100);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        // a long window so concurrent requests reliably meet in a batch
+        try (SimilarityServer server = SimilarityServer.start(0, 20_000_000L, 8)) {
+            List<Future<String>> responses = new ArrayList<>();
+            for (int[] candidate : candidates) {
+                responses.add(executor.submit(() -> post(client, server, "/similarity", ListFormat.format(query) + "\n" + ListFormat.format(candidate) + "\n").body()));
+            }
+            for (int i = 0; i < candidates.size(); i++) {
+                assertEquals(OrderedSetSimilarity.orderedSetSimilarity(query, candidates.get(i)) + "\n", responses.get(i).get());
+            }
+            assertEquals(candidates.size(), server.batchedRequests());
+            assertTrue(server.batches() < candidates.size(), server.batches() + " batches");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void aFullBatchDoesNotWaitForTheWindow() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        // a window far longer than the test timeout, only filling the batch can release it
+        try (SimilarityServer server = SimilarityServer.start(0, 60_000_000_000L, 2)) {
+            Future<String> first = executor.submit(() -> post(client, server, "/similarity", "1 2 3\n3 2 1\n").body());
+            Future<String> second = executor.submit(() -> post(client, server, "/similarity", "1 2 3\n1 2 3\n").body());
+            assertEquals(OrderedSetSimilarity.orderedSetSimilarity(new int[]{1, 2, 3}, new int[]{3, 2, 1}) + "\n", first.get(10, TimeUnit.SECONDS));
+            assertEquals("1.0\n", second.get(10, TimeUnit.SECONDS));
+            assertEquals(1, server.batches());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void oneVsManyStreamsAScorePerCandidate() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        int[] query = new Random(67).ints(30, 0, 60).toArray();
+        List<int[]> candidates = SimilaritySearchTest.randomCorpus(new Random(71), 500, 40, 60);
+        StringBuilder body = new StringBuilder(ListFormat.format(query)).append('\n');
+        StringBuilder expected = new StringBuilder();
+        for (int[] candidate : candidates) {
+            body.append(ListFormat.format(candidate)).append('\n');
+            expected.append(OrderedSetSimilarity.orderedSetSimilarity(query, candidate)).append('\n');
+        }
+        try (SimilarityServer server = SimilarityServer.start(0)) {
+            HttpResponse<String> response = post(client, server, "/one-vs-many", body.toString());
+            assertEquals(200, response.statusCode());
+            assertEquals(expected.toString(), response.body());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package orderedSetSimilarity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SimilarityTrackerTest {
+
+    @Test
+    public void agreesWithRecomputation() {
+        Random random = new Random(47);
+        for (int n = 0; n < 200; n++) {
+            int[] reference = random.ints(0, 60).distinct().limit(random.nextInt(30)).toArray();
+            int[] list = random.ints(0, 60).distinct().limit(random.nextInt(30)).toArray();
+            SimilarityTracker tracker = new SimilarityTracker(list, reference);
+            for (int edit = 0; edit < 300; edit++) {
+                int size = tracker.size();
+                int operation = random.nextInt(3);
+                if (operation == 0 || size == 0) {
+                    int element = random.nextInt(60);
+                    if (Arrays.stream(tracker.toArray()).noneMatch(e -> e == element)) {
+                        tracker.insert(random.nextInt(size + 1), element);
+                    }
+                } else if (operation == 1) {
+                    tracker.remove(random.nextInt(size));
+                } else {
+                    tracker.move(random.nextInt(size), random.nextInt(size));
+                }
+                assertEquals(OrderedSetSimilarity.orderedSetSimilarity(tracker.toArray(), reference), tracker.similarity(), 0.0);
+                assertEquals(OrderedSetSimilarity.orderedSetSimilarity(tracker.toArray(), reference),
+                        OrderedSetSimilarity.orderedSetSimilarity(reference, tracker.toArray()), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void knownValues() {
+        SimilarityTracker tracker = new SimilarityTracker(new int[]{1, 3, 2, 4, 5}, new int[]{1, 2, 3, 4, 5});
+        assertEquals(0.92, tracker.similarity());
+        tracker.move(2, 1);
+        assertEquals(1.0, tracker.similarity());
+        tracker.remove(4);
+        tracker.remove(3);
+        assertEquals(0.6, tracker.similarity());
+        assertEquals(3, tracker.intersectionSize());
+        assertEquals(5, tracker.unionSize());
+        tracker.insert(0, 9);
+        assertEquals(3, tracker.totalPenalty());
+    }
+
+    @Test
+    public void rejectsRepeatedElements() {
+        assertThrows(IllegalArgumentException.class, () -> new SimilarityTracker(new int[]{1, 1}, new int[0]));
+        assertThrows(IllegalArgumentException.class, () -> new SimilarityTracker(new int[0], new int[]{2, 2}));
+        SimilarityTracker tracker = new SimilarityTracker(new int[]{1, 2}, new int[]{2});
+        assertThrows(IllegalArgumentException.class, () -> tracker.insert(0, 2));
+        assertThrows(IndexOutOfBoundsException.class, () -> tracker.remove(2));
+    }
+}
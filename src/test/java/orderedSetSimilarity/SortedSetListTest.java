@@ -0,0 +1,48 @@
+package orderedSetSimilarity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static orderedSetSimilarity.OrderedSetSimilarity.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SortedSetListTest {
+
+    private static void assertSameScores(int[] list1, int[] list2) {
+        SortedSetList sorted1 = new SortedSetList(list1);
+        SortedSetList sorted2 = new SortedSetList(list2);
+        assertEquals(orderedSetSimilarity(list1, list2), sorted1.orderedSetSimilarity(sorted2), 0.0);
+        assertEquals(jaccardSimilarity(list1, list2), sorted1.jaccardSimilarity(sorted2), 0.0);
+        assertEquals(displacementSimilarity(list1, list2), sorted1.displacementSimilarity(sorted2), 0.0);
+    }
+
+    @Test
+    public void mergeMatchesStaticMethods() {
+        // negative ids check the signed sort
+        OrderedSetSimilarityTest.forRandomPairs(37, 20000, 50, -20, 30, SortedSetListTest::assertSameScores);
+    }
+
+    @Test
+    public void gallopMatchesStaticMethods() {
+        Random random = new Random(41);
+        for (int n = 0; n < 2000; n++) {
+            int[] shortList = random.ints(1 + random.nextInt(5), 0, 2000).toArray();
+            int[] longList = random.ints(500 + random.nextInt(500), 0, 2000).toArray();
+            assertSameScores(shortList, longList);
+            assertSameScores(longList, shortList);
+        }
+    }
+
+    @Test
+    public void knownValues() {
+        SortedSetList list = new SortedSetList(Arrays.asList(4, 7, 3, 8, 9, 2));
+        assertEquals(6, list.size());
+        assertEquals(6, list.distinctCount());
+        assertEquals(0.7222222222222223, list.orderedSetSimilarity(new SortedSetList(new int[]{4, 3, 7, 2, 9})));
+        assertEquals(0.5555555555555556, list.displacementSimilarity(new SortedSetList(new int[]{3, 9, 2})));
+        assertEquals(1.0, new SortedSetList(new int[0]).orderedSetSimilarity(new SortedSetList(new int[0])));
+        assertEquals(0.0, new SortedSetList(new int[]{5}).orderedSetSimilarity(new SortedSetList(new int[]{1})));
+    }
+}